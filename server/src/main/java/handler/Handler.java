@@ -4,9 +4,11 @@ import com.google.gson.Gson;
 import model.AuthData;
 import model.GameData;
 import model.UserData;
+import request.AnalyzeRequest;
 import request.JoinGameRequest;
 import server.InvalidRequest;
 import server.ServerException;
+import service.AnalysisService;
 import service.Service;
 import spark.Request;
 import spark.Response;
@@ -16,9 +18,11 @@ import java.util.Map;
 
 public class Handler {
     private final Service service;
+    private final AnalysisService analysisService;
 
-    public Handler(Service service){
+    public Handler(Service service, AnalysisService analysisService){
         this.service = service;
+        this.analysisService = analysisService;
     }
 
     public String clear(Request req, Response res){
@@ -168,5 +172,27 @@ public class Handler {
         }
     }
 
+    public String analyze(Request req, Response res){
+        String authToken = req.headers("authorization");
+        AnalyzeRequest analyzeRequest = new Gson().fromJson(req.body(), AnalyzeRequest.class);
+        // Exactly one of gameID and fen says which position to analyze
+        if(authToken==null || analyzeRequest==null || analyzeRequest.millis()<=0
+                || (analyzeRequest.gameID()>0) == (analyzeRequest.fen()!=null)){
+            var e = new InvalidRequest();
+            res.status(e.statusCode);
+            return e.toJson();
+        }
 
+        try {
+            var game = service.getPosition(authToken, analyzeRequest);
+            return new Gson().toJson(analysisService.analyze(game, analyzeRequest.millis()));
+        } catch(ServerException e){
+            res.status(e.statusCode);
+            return e.toJson();
+        } catch(Exception e){
+            var serverException = new ServerException(500,e.getMessage());
+            res.status(serverException.statusCode);
+            return serverException.toJson();
+        }
+    }
 }
@@ -5,12 +5,16 @@ import dataaccess.MemoryDataAccess;
 import dataaccess.SqlDataAccess;
 import handler.Handler;
 import spark.*;
+import service.AnalysisService;
 import service.Service;
 import websocket.WebSocketHandler;
 
+import java.io.IOException;
+
 public class Server {
 
     public SqlDataAccess dataAccess = null;
+    private AnalysisService analysisService = null;
 
     public Server(){
     }
@@ -23,13 +27,15 @@ public class Server {
         // Register your endpoints and handle exceptions here.
         try {
             dataAccess = new SqlDataAccess();
-        } catch (ServerException e) {
+            // Analysis runs on its own bounded pool, never on Spark's request threads
+            analysisService = AnalysisService.fromSystemProperties();
+        } catch (ServerException | IOException e) {
             throw new RuntimeException(e);
         }
 
         Service service = new Service(dataAccess);
         var webSocketHandler = new WebSocketHandler(service);
-        Handler handler = new Handler(service);
+        Handler handler = new Handler(service, analysisService);
 
         Spark.webSocket("/ws",webSocketHandler);
 
@@ -40,6 +46,7 @@ public class Server {
         Spark.get("/game", handler::listGames);
         Spark.post("/game",handler::createGame);
         Spark.put("/game", handler::joinGame);
+        Spark.post("/analyze", handler::analyze);
 
         //This line initializes the server and can be removed once you have a functioning endpoint 
         Spark.init();
@@ -51,6 +58,9 @@ public class Server {
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        if(analysisService != null){
+            analysisService.close();
+        }
     }
 
     public void clearDatabase() throws DataAccessException{
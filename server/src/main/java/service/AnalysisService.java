@@ -0,0 +1,149 @@
+package service;
+
+import chess.ChessGame;
+import chess.engine.BookMove;
+import chess.engine.OpeningBook;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.Tablebase;
+import chess.engine.TranspositionTable;
+import model.AnalysisData;
+import server.ServerException;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs engine searches for the /analyze route on its own fixed pool of threads, so a burst
+ * of analysis can't tie up the threads that serve everything else. Requests wait in a
+ * bounded queue when every thread is busy, and are turned away with a 503 once it's full.
+ * <p>
+ * The searches share one {@link TranspositionTable}, and a {@link Tablebase} if one is set.
+ * With an {@link OpeningBook}, a position the book knows isn't searched at all: its most
+ * played book move is the answer.
+ */
+public class AnalysisService implements AutoCloseable {
+
+    // System properties read by fromSystemProperties
+    public static final String THREADS_PROPERTY = "chess.analysis.threads";
+    public static final String QUEUE_PROPERTY = "chess.analysis.queue";
+    public static final String MAX_MILLIS_PROPERTY = "chess.analysis.maxMillis";
+
+    public static final int DEFAULT_QUEUE = 16;
+    public static final long DEFAULT_MAX_MILLIS = 10_000;
+    public static final int MAX_LINE = 16;
+
+    private final ThreadPoolExecutor executor;
+    private final long maxMillis;
+    private final TranspositionTable table;
+    private final Tablebase tablebase;
+    private final OpeningBook book;
+
+    /**
+     * @param threads how many searches run at once
+     * @param queue how many more requests may wait for a thread
+     * @param maxMillis the longest a search may run, longer budgets are cut to this
+     * @param tablebase may be null
+     * @param book may be null
+     */
+    public AnalysisService(int threads, int queue, long maxMillis, TranspositionTable table, Tablebase tablebase,
+                           OpeningBook book) {
+        if (threads < 1 || queue < 0 || maxMillis < 1) {
+            throw new IllegalArgumentException("Bad analysis pool settings: " + threads + " threads, queue of "
+                    + queue + ", " + maxMillis + "ms");
+        }
+        // AbortPolicy, the default, throws RejectedExecutionException when the queue is full
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                queue == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queue),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "analysis-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxMillis = maxMillis;
+        this.table = table;
+        this.tablebase = tablebase;
+        this.book = book;
+    }
+
+    /**
+     * @return a service set up by the properties above, using half the processors and a
+     * {@value #DEFAULT_QUEUE} request queue by default, and the engine's own table, tablebase and
+     * book properties
+     */
+    public static AnalysisService fromSystemProperties() throws IOException {
+        int threads = Integer.getInteger(THREADS_PROPERTY, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        int queue = Integer.getInteger(QUEUE_PROPERTY, DEFAULT_QUEUE);
+        long maxMillis = Long.getLong(MAX_MILLIS_PROPERTY, DEFAULT_MAX_MILLIS);
+        return new AnalysisService(threads, queue, maxMillis, TranspositionTable.fromSystemProperties(),
+                Tablebase.fromSystemProperties(), OpeningBook.fromSystemProperties());
+    }
+
+    /**
+     * Searches a position on the pool, blocking until it's done
+     *
+     * @param game the position, which is copied and never changed
+     * @param millis the search's budget, cut to the maximum
+     * @throws ServerException with status 503 if the queue is full
+     */
+    public AnalysisData analyze(ChessGame game, long millis) throws ServerException {
+        long submitted = System.nanoTime();
+        long budget = Math.min(millis, maxMillis);
+        ChessGame position = new ChessGame(game);
+        Future<AnalysisData> analysis;
+        try {
+            analysis = executor.submit(() -> search(position, budget, submitted));
+        } catch (RejectedExecutionException e) {
+            throw new ServerException(503, "Error: too many analysis requests, try again later");
+        }
+        try {
+            return analysis.get();
+        } catch (InterruptedException e) {
+            analysis.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ServerException(500, "Error: interrupted waiting for analysis");
+        } catch (ExecutionException e) {
+            throw new ServerException(500, "Error: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * @return how many requests are waiting for a thread
+     */
+    public int queued() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private AnalysisData search(ChessGame game, long millis, long submitted) {
+        long started = System.nanoTime();
+        if (book != null) {
+            List<BookMove> moves = book.moves(game);
+            if (!moves.isEmpty()) {
+                BookMove move = moves.stream().max(Comparator.comparingInt(BookMove::weight)).orElseThrow();
+                return new AnalysisData(move.move(), 0, false, 0, 0, List.of(move.move()), true,
+                        TimeUnit.NANOSECONDS.toMillis(started - submitted),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+        }
+        Search search = new Search(game, table);
+        search.setTablebase(tablebase);
+        SearchResult result = search.search(SearchLimits.millis(millis));
+        return new AnalysisData(result.bestMove(), result.score(), result.isMate(), result.depth(), result.nodes(),
+                search.principalVariation(MAX_LINE), false, TimeUnit.NANOSECONDS.toMillis(started - submitted),
+                TimeUnit.NANOSECONDS.toMillis(result.nanos()));
+    }
+}
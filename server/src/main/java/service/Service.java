@@ -2,12 +2,14 @@ package service;
 import ui.EscapeSequences;
 import chess.ChessGame;
 import chess.ChessMove;
+import chess.Fen;
 import chess.InvalidMoveException;
 import dataaccess.DataAccess;
 import model.AuthData;
 import model.GameData;
 import model.UserData;
 import org.mindrot.jbcrypt.BCrypt;
+import request.AnalyzeRequest;
 import request.JoinGameRequest;
 import server.InvalidRequest;
 import server.ServerException;
@@ -135,6 +137,21 @@ public class Service {
     public GameData getGame(int gameID) throws ServerException{
         return dataAccess.getGame(gameID);
     }
+    public ChessGame getPosition(String authToken, AnalyzeRequest analyzeRequest) throws ServerException{
+        authorized(authToken);
+        if(analyzeRequest.gameID()>0){
+            GameData gameData = dataAccess.getGame(analyzeRequest.gameID());
+            if(gameData==null){
+                throw new InvalidRequest("Error: no game with that ID");
+            }
+            return gameData.game();
+        }
+        try {
+            return Fen.parse(analyzeRequest.fen());
+        } catch(IllegalArgumentException e){
+            throw new InvalidRequest("Error: " + e.getMessage());
+        }
+    }
     public void leaveGame(int gameID, String authToken) throws ServerException{
         String username = getUsername(authToken);
         var game = dataAccess.getGame(gameID);
@@ -151,7 +168,8 @@ public class Service {
         dataAccess.saveGame(updatedGame);
     }
 
-    public void makeMove(ChessMove move, int gameID, String authToken) throws Exception {
+    // Returns the game as saved, its status already worked out by the move
+    public GameData makeMove(ChessMove move, int gameID, String authToken) throws Exception {
         var gameData = this.getGame(gameID);
         if(gameData.game().gameOver){
             throw new InvalidRequest("Game is already over!");
@@ -169,6 +187,7 @@ public class Service {
         gameData.game().makeMove(move);
 
         dataAccess.saveGame(gameData);
+        return gameData;
     }
 
     public void resign(String authToken, int gameID) throws Exception {
@@ -2,6 +2,7 @@ package websocket;
 
 import chess.ChessGame;
 import chess.ChessPosition;
+import chess.GameStatus;
 import com.google.gson.Gson;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
@@ -54,8 +55,7 @@ public class WebSocketHandler {
                     break;
                 case MAKE_MOVE:
                     var move = new Gson().fromJson(message, MakeMoveCommand.class).getChessMove();
-                    service.makeMove(move, command.getGameID(), command.getAuthToken());
-                    var updatedGame = service.getGame(command.getGameID());
+                    var updatedGame = service.makeMove(move, command.getGameID(), command.getAuthToken());
                     var loadGameMessage = new LoadGameMessage(updatedGame);
                     connections.broadcast(command.getGameID(),null,loadGameMessage);
                     var promoPiece = move.getPromotionPiece()==null ? "" : " "+move.getPromotionPiece().toString();
@@ -66,38 +66,32 @@ public class WebSocketHandler {
                                     " -> "+ChessPosition.getReadablePos(move.getEndPosition())+
                                     promoPiece);
                     connections.broadcast(command.getGameID(),command.getAuthToken(),notification);
-                    if(updatedGame.game().isInCheck(ChessGame.TeamColor.WHITE)){
+                    // Worked out when the move was made, this doesn't look at the board again
+                    var status = updatedGame.game().getStatus();
+                    if(status.isDraw()){
+                        var reason = switch(status.state()){
+                            case THREEFOLD_REPETITION -> "threefold repetition";
+                            case FIFTY_MOVE_RULE -> "the fifty-move rule";
+                            default -> "insufficient material";
+                        };
                         notification = new NotificationMessage(
-                                EscapeSequences.SET_TEXT_COLOR_GREEN + updatedGame.whiteUsername()
-                                        + EscapeSequences.SET_TEXT_COLOR_WHITE + " is now in check!");
-                        connections.broadcast(command.getGameID(),null,notification);
-                    } else if(updatedGame.game().isInCheck(ChessGame.TeamColor.BLACK)){
-                        notification = new NotificationMessage(
-                                EscapeSequences.SET_TEXT_COLOR_MAGENTA + updatedGame.blackUsername()
-                                        + EscapeSequences.SET_TEXT_COLOR_WHITE + " is now in check!");
-                        connections.broadcast(command.getGameID(),null,notification);
-                    }
-                    if(updatedGame.game().isInCheckmate(ChessGame.TeamColor.WHITE)){
-                        notification = new NotificationMessage(
-                                EscapeSequences.SET_TEXT_COLOR_GREEN + updatedGame.whiteUsername()
-                                        + EscapeSequences.SET_TEXT_COLOR_WHITE + " is now in checkmate!");
-                        connections.broadcast(command.getGameID(),null,notification);
-                    } else if(updatedGame.game().isInCheckmate(ChessGame.TeamColor.BLACK)){
-                        notification = new NotificationMessage(
-                                EscapeSequences.SET_TEXT_COLOR_MAGENTA + updatedGame.blackUsername()
-                                        + EscapeSequences.SET_TEXT_COLOR_WHITE + " is now in checkmate!");
-                        connections.broadcast(command.getGameID(),null,notification);
-                    }
-                    if(updatedGame.game().isInStalemate(ChessGame.TeamColor.WHITE)){
-                        notification = new NotificationMessage(
-                                EscapeSequences.SET_TEXT_COLOR_GREEN + updatedGame.whiteUsername()
-                                        + EscapeSequences.SET_TEXT_COLOR_WHITE + " is now in stalemate!");
-                        connections.broadcast(command.getGameID(),null,notification);
-                    } else if(updatedGame.game().isInStalemate(ChessGame.TeamColor.BLACK)){
-                        notification = new NotificationMessage(
-                                EscapeSequences.SET_TEXT_COLOR_MAGENTA + updatedGame.blackUsername()
-                                        + EscapeSequences.SET_TEXT_COLOR_WHITE + " is now in stalemate!");
+                                EscapeSequences.SET_TEXT_COLOR_WHITE + "The game is a draw by " + reason + "!");
                         connections.broadcast(command.getGameID(),null,notification);
+                    } else if(status.state() != GameStatus.State.NORMAL){
+                        var username = status.team() == ChessGame.TeamColor.WHITE
+                                ? EscapeSequences.SET_TEXT_COLOR_GREEN + updatedGame.whiteUsername()
+                                : EscapeSequences.SET_TEXT_COLOR_MAGENTA + updatedGame.blackUsername();
+                        if(status.isCheck()){
+                            notification = new NotificationMessage(
+                                    username + EscapeSequences.SET_TEXT_COLOR_WHITE + " is now in check!");
+                            connections.broadcast(command.getGameID(),null,notification);
+                        }
+                        if(status.isGameOver()){
+                            var ending = status.state() == GameStatus.State.CHECKMATE ? "checkmate" : "stalemate";
+                            notification = new NotificationMessage(
+                                    username + EscapeSequences.SET_TEXT_COLOR_WHITE + " is now in " + ending + "!");
+                            connections.broadcast(command.getGameID(),null,notification);
+                        }
                     }
                     break;
                 case LEAVE:
@@ -0,0 +1,83 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.engine.OpeningBook;
+import chess.engine.PolyglotKeys;
+import chess.engine.TranspositionTable;
+import model.AnalysisData;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.ServerException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisServiceTests {
+
+    @Test
+    @DisplayName("Analyzes a Position")
+    void analyze() throws ServerException, InvalidMoveException {
+        try (var analysis = new AnalysisService(1, 1, 1_000, new TranspositionTable(1), null, null)) {
+            var game = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+            AnalysisData data = analysis.analyze(game, 200);
+            assertTrue(data.mate());
+            assertEquals(data.bestMove(), data.principalVariation().get(0));
+            for (ChessMove move : data.principalVariation()) {
+                game.makeMove(move);
+            }
+            assertTrue(data.queueMillis() >= 0 && data.computeMillis() >= 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Answers From the Opening Book")
+    void book() throws ServerException, IOException {
+        // One entry: the start position's d2d4
+        ByteBuffer entry = ByteBuffer.allocate(16).putLong(PolyglotKeys.standard().key(new ChessGame()))
+                .putShort((short) (1 << 9 | 3 << 6 | 3 << 3 | 3)).putShort((short) 1).putInt(0);
+        Path file = Files.createTempFile("book", ".bin");
+        file.toFile().deleteOnExit();
+        Files.write(file, entry.array());
+        try (var analysis = new AnalysisService(1, 1, 1_000, new TranspositionTable(1), null, new OpeningBook(file))) {
+            AnalysisData data = analysis.analyze(new ChessGame(), 200);
+            ChessMove d4 = new ChessMove(new ChessPosition(2, 4), new ChessPosition(4, 4), null);
+            assertTrue(data.book());
+            assertEquals(d4, data.bestMove());
+            assertEquals(0, data.nodes());
+
+            var game = Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+            assertFalse(analysis.analyze(game, 200).book());
+        }
+    }
+
+    @Test
+    @DisplayName("Turns Requests Away When the Queue Is Full")
+    void queueFull() throws InterruptedException {
+        try (var analysis = new AnalysisService(1, 1, 2_000, new TranspositionTable(1), null, null)) {
+            for (int i = 0; i < 2; i++) {
+                Thread client = new Thread(() -> {
+                    try {
+                        analysis.analyze(new ChessGame(), 1_000);
+                    } catch (ServerException ignored) {
+                    }
+                });
+                client.setDaemon(true);
+                client.start();
+            }
+            long deadline = System.currentTimeMillis() + 1_000;
+            while (analysis.queued() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            ServerException e = assertThrows(ServerException.class, () -> analysis.analyze(new ChessGame(), 100));
+            assertEquals(503, e.statusCode);
+        }
+    }
+}
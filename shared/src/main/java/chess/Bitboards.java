@@ -0,0 +1,299 @@
+package chess;
+
+/**
+ * Static helpers for working with 64-bit board occupancy masks.
+ * <p>
+ * Squares are numbered 0-63 with a1 = 0, h1 = 7 and h8 = 63, so bit
+ * {@code (row-1)*8 + (col-1)} of a mask represents the ChessPosition (row, col).
+ * <p>
+ * Attacks from a single square are read from tables built once when the class loads.
+ * Knights, kings and pawns get a plain table per square. Bishops and rooks use magic
+ * bitboards: the blockers on the piece's lines are multiplied by a per-square magic
+ * number, and the top bits of the product index that square's table of attack sets.
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+    // a1 is a dark square, b1 and a2 are light
+    public static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    private static final long NOT_FILE_A = ~FILE_A;
+    private static final long NOT_FILE_H = ~FILE_H;
+    private static final long NOT_FILES_AB = ~(FILE_A | FILE_A << 1);
+    private static final long NOT_FILES_GH = ~(FILE_H | FILE_H >>> 1);
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+    // BETWEEN[a][b] is the squares strictly between two squares on a shared row, column or
+    // diagonal, LINE[a][b] is that whole line from edge to edge. Both are empty otherwise
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    private static final Magic[] BISHOP_MAGICS = new Magic[64];
+    private static final Magic[] ROOK_MAGICS = new Magic[64];
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    // Magic multipliers per square, found ahead of time by random trial so the tables can be
+    // filled without searching on every startup. Filling checks each one still works
+    private static final long[] BISHOP_MAGIC_NUMBERS = {
+            0x01200200AA028200L, 0x05081050821044C0L, 0x0608084302281000L, 0x8108C20030010000L,
+            0x0001104040A45501L, 0x088114200400C016L, 0x0261821010E40001L, 0x008040220110C002L,
+            0x8201101218281082L, 0x0200108418008421L, 0x14201C8400820080L, 0x0020040420800010L,
+            0x0808011040AC0020L, 0x0040011002501010L, 0x0040050101A02004L, 0x8224E08044100404L,
+            0x42200028028C2800L, 0x0002202004041088L, 0x0010203800802248L, 0x0024000641020003L,
+            0x0448100101401160L, 0x0005002205008210L, 0x2001040601100268L, 0x2001D61100461004L,
+            0x2004400404084808L, 0x8614110102106500L, 0x0002080040408525L, 0x0044080000220040L,
+            0xA801020014008421L, 0x00004080A4100400L, 0x0088004041044200L, 0x40020E00A0208240L,
+            0x9001104000080848L, 0x30A2412080440808L, 0x0800180800040440L, 0x3181600800228820L,
+            0x0241050400020020L, 0x04A0040410402200L, 0x0921095400020201L, 0x8A08008304209046L,
+            0x0344412010044800L, 0x0024010882018800L, 0x0000101804082802L, 0x0000A89144000804L,
+            0x4001220202000410L, 0x0001081002902100L, 0x82105010890900A0L, 0x84585A2400241040L,
+            0x161B1A8820093090L, 0x000A0080AC700404L, 0x0002008048188000L, 0x0110000020882000L,
+            0x8040002044242000L, 0x0490420811190080L, 0x0045241004012000L, 0x1002880220920000L,
+            0xC200240108011020L, 0x0400CA804412A002L, 0x2103002821080800L, 0x2000802400420202L,
+            0x000408000910AC00L, 0x800080E002020A10L, 0x0004122008110042L, 0x808204410A040100L
+    };
+    private static final long[] ROOK_MAGIC_NUMBERS = {
+            0x4080084000106180L, 0x0140400020001000L, 0x0200081200802040L, 0x2080100180040800L,
+            0x2200040802002010L, 0x0200020004080110L, 0x0200010400820008L, 0x2080010000205080L,
+            0x0000800590234000L, 0x5000400020100042L, 0x0821001020004100L, 0x0101805000B80080L,
+            0x0480800400080082L, 0x00C0800200800401L, 0x0002800200800100L, 0x0041000496054300L,
+            0x0080014000402000L, 0x0410104004200445L, 0x0220048010008520L, 0x0028008080081000L,
+            0x0018010008110004L, 0x1A45010002040008L, 0x8400440008010290L, 0x028926000241A104L,
+            0x109040018000B080L, 0x0000400080802000L, 0x0200100080200080L, 0x0402004200201009L,
+            0x0400040080800800L, 0x50C2008200040890L, 0x0000810400081002L, 0x800C004200040081L,
+            0x8200400081800022L, 0x0000200040401000L, 0x0000820442001020L, 0x3048001001010020L,
+            0x0008080280800400L, 0x0004800200800401L, 0x8220011004000802L, 0x0201000645000282L,
+            0x0051400824878002L, 0x1420004030044000L, 0x0010040800202000L, 0x1010010010210008L,
+            0x0000040008008080L, 0x0004008002008004L, 0x4041308811140042L, 0x80800088610A0004L,
+            0x0080002000400040L, 0x0504200080400880L, 0x08101020004D0100L, 0x0020210008100100L,
+            0x0046840108008080L, 0x0102001008040200L, 0x0488110812900400L, 0x400104071A884200L,
+            0x0212004080110022L, 0x1102400120D10881L, 0x4030088200401022L, 0x20160060C0380412L,
+            0x0002010810208402L, 0x0021000204000801L, 0x40010002000400C1L, 0x0510012900840046L
+    };
+
+    /**
+     * Per-square lookup for one slider: the relevant blocker mask, the magic multiplier,
+     * how far to shift the product, and the attack sets it indexes
+     */
+    private record Magic(long mask, long magic, int shift, long[] attacks) {
+        long attacks(long occupied) {
+            return attacks[(int) (((occupied & mask) * magic) >>> shift)];
+        }
+    }
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            long bit = bit(square);
+            KNIGHT_ATTACKS[square] = knightAttacks(bit);
+            KING_ATTACKS[square] = kingAttacks(bit);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][square] = pawnAttacks(bit, ChessGame.TeamColor.WHITE);
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][square] = pawnAttacks(bit, ChessGame.TeamColor.BLACK);
+        }
+        for (int square = 0; square < 64; square++) {
+            BISHOP_MAGICS[square] = buildMagic(square, BISHOP_DIRECTIONS, BISHOP_MAGIC_NUMBERS[square]);
+            ROOK_MAGICS[square] = buildMagic(square, ROOK_DIRECTIONS, ROOK_MAGIC_NUMBERS[square]);
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int[][] directions : new int[][][]{BISHOP_DIRECTIONS, ROOK_DIRECTIONS}) {
+                long emptyBoardAttacks = slidingAttacks(a, 0L, directions);
+                for (int b = 0; b < 64; b++) {
+                    if ((emptyBoardAttacks & bit(b)) != 0) {
+                        BETWEEN[a][b] = slidingAttacks(a, bit(b), directions) & slidingAttacks(b, bit(a), directions);
+                        LINE[a][b] = (emptyBoardAttacks & slidingAttacks(b, 0L, directions)) | bit(a) | bit(b);
+                    }
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    public static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return which row (1-8) the square is in
+     */
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return which column (1-8) the square is in
+     */
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(row(square), column(square));
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static boolean isInBounds(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    /**
+     * @return every square a knight standing on any of the given squares could jump to
+     */
+    public static long knightAttacks(long knights) {
+        return ((knights << 17) & NOT_FILE_A)
+                | ((knights << 15) & NOT_FILE_H)
+                | ((knights << 10) & NOT_FILES_AB)
+                | ((knights << 6) & NOT_FILES_GH)
+                | ((knights >>> 17) & NOT_FILE_H)
+                | ((knights >>> 15) & NOT_FILE_A)
+                | ((knights >>> 10) & NOT_FILES_GH)
+                | ((knights >>> 6) & NOT_FILES_AB);
+    }
+
+    /**
+     * @return every square adjacent to any of the given squares
+     */
+    public static long kingAttacks(long kings) {
+        long sideways = ((kings << 1) & NOT_FILE_A) | ((kings >>> 1) & NOT_FILE_H);
+        long row = kings | sideways;
+        return sideways | (row << 8) | (row >>> 8);
+    }
+
+    /**
+     * @return the squares the given pawns attack diagonally (not the squares they push to)
+     */
+    public static long pawnAttacks(long pawns, ChessGame.TeamColor team) {
+        if (team == ChessGame.TeamColor.WHITE) {
+            return ((pawns << 9) & NOT_FILE_A) | ((pawns << 7) & NOT_FILE_H);
+        }
+        return ((pawns >>> 7) & NOT_FILE_A) | ((pawns >>> 9) & NOT_FILE_H);
+    }
+
+    /**
+     * @return the squares a knight on the square attacks
+     */
+    public static long knightAttacksFrom(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a king on the square attacks
+     */
+    public static long kingAttacksFrom(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given team on the square attacks diagonally
+     */
+    public static long pawnAttacksFrom(int square, ChessGame.TeamColor team) {
+        return PAWN_ATTACKS[team.ordinal()][square];
+    }
+
+    /**
+     * @return the squares a bishop on the square could reach, stopping on (and including) the
+     * first occupied square in each direction
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * @return the squares a rook on the square could reach, stopping on (and including) the
+     * first occupied square in each direction
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied);
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares that share a row, column or diagonal,
+     * or an empty mask if they don't
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return the whole row, column or diagonal through two squares, or an empty mask if
+     * they don't share one
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    // Walks each direction one square at a time, only used to fill the magic tables
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int row = row(square) + direction[0];
+            int col = column(square) + direction[1];
+            while (isInBounds(row, col)) {
+                long bit = bit(square(row, col));
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    // The squares whose occupancy can change a slider's attacks: its lines minus the board edge
+    private static long relevantBlockers(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int row = row(square) + direction[0];
+            int col = column(square) + direction[1];
+            while (isInBounds(row + direction[0], col + direction[1])) {
+                mask |= bit(square(row, col));
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static Magic buildMagic(int square, int[][] directions, long magic) {
+        long mask = relevantBlockers(square, directions);
+        int bits = Long.bitCount(mask);
+        long[] attacks = new long[1 << bits];
+        boolean[] filled = new boolean[attacks.length];
+
+        // Walk every subset of the blocker mask and store the attacks it produces
+        long subset = 0L;
+        do {
+            int index = (int) ((subset * magic) >>> (64 - bits));
+            long reference = slidingAttacks(square, subset, directions);
+            if (filled[index] && attacks[index] != reference) {
+                throw new IllegalStateException("Magic number for square " + square + " has a collision");
+            }
+            filled[index] = true;
+            attacks[index] = reference;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        return new Magic(mask, magic, 64 - bits, attacks);
+    }
+}
@@ -1,5 +1,12 @@
 package chess;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -8,10 +15,24 @@ import java.util.*;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoard.JsonFormat.class)
 public class ChessBoard {
 
-    // boardSpots[row][col]
-    private ChessPiece[][] piecesOnBoard = new ChessPiece[8][8];
+    // One occupancy mask per team and piece type, indexed by pieceIndex(team, type).
+    // Bit (row-1)*8 + (col-1) is set when that piece stands on (row, col)
+    private long[] pieceBitboards = new long[12];
+    // Aggregate occupancy for each team, indexed by TeamColor.ordinal()
+    private long[] teamBitboards = new long[2];
+    // Which piece stands on each square (pieceIndex + 1, or 0 when empty) and the board's Zobrist
+    // key, both kept in step with the masks as pieces are added and removed. Copies and boards
+    // made by hand rebuild them from the masks the first time they're needed; JSON goes through
+    // JsonFormat below
+    private transient byte[] pieceOnSquare;
+    private transient long zobristKey;
+    // Running sums of the pieces' PieceSquareTables entries, rebuilt and kept up to date the same way
+    private transient int middlegameScore;
+    private transient int endgameScore;
+    private transient int phase;
     private static final ChessPiece.PieceType[] INITIAL_ROW_SETUP = {
             ChessPiece.PieceType.ROOK,
             ChessPiece.PieceType.KNIGHT,
@@ -22,12 +43,23 @@ public class ChessBoard {
             ChessPiece.PieceType.KNIGHT,
             ChessPiece.PieceType.ROOK
     };
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final int KING = ChessPiece.PieceType.KING.ordinal();
+    private static final int PAWN = ChessPiece.PieceType.PAWN.ordinal();
 
     @Override
     public String toString() {
-        return "ChessBoard{" +
-                "piecesOnBoard=" + Arrays.deepToString(piecesOnBoard) +
-                '}';
+        StringBuilder builder = new StringBuilder("ChessBoard{\n");
+        for(int row = 8; row >= 1; row--){
+            builder.append('|');
+            for(int col = 1; col <= 8; col++){
+                int index = pieceIndexAt(Bitboards.square(row, col));
+                builder.append(index < 0 ? ' ' : pieceChar(index)).append('|');
+            }
+            builder.append('\n');
+        }
+        return builder.append('}').toString();
     }
 
     @Override
@@ -39,12 +71,12 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(piecesOnBoard, that.piecesOnBoard);
+        return Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(piecesOnBoard);
+        return Long.hashCode(getZobristKey());
     }
 
     public ChessBoard() {
@@ -52,14 +84,16 @@ public class ChessBoard {
     }
 
 
-    // Deep Copy constructor
+    // Copy constructor, the piece masks are plain longs so this is just two array copies
     public ChessBoard(ChessBoard that){
-        for(int i=0; i<8; i++){
-            for(int j=0; j<8; j++){
-                if(that.piecesOnBoard[i][j]!=null){
-                    this.piecesOnBoard[i][j] = new ChessPiece(that.piecesOnBoard[i][j]);
-                }
-            }
+        this.pieceBitboards = that.pieceBitboards.clone();
+        this.teamBitboards = that.teamBitboards.clone();
+        if(that.pieceOnSquare != null){
+            this.pieceOnSquare = that.pieceOnSquare.clone();
+            this.zobristKey = that.zobristKey;
+            this.middlegameScore = that.middlegameScore;
+            this.endgameScore = that.endgameScore;
+            this.phase = that.phase;
         }
     }
 
@@ -70,7 +104,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        piecesOnBoard[position.getRow()-1][position.getColumn()-1] = piece;
+        int square = checkedSquare(position);
+        clearSquare(square);
+        if(piece != null){
+            putPiece(pieceIndex(piece.getTeamColor(), piece.getPieceType()), square);
+        }
     }
 
     /**
@@ -79,7 +117,7 @@ public class ChessBoard {
      * @param position where to remove the piece from
      */
     public void removePiece(ChessPosition position){
-        piecesOnBoard[position.getRow()-1][position.getColumn()-1] = null;
+        clearSquare(checkedSquare(position));
     }
 
     /**
@@ -90,20 +128,341 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return piecesOnBoard[position.getRow()-1][position.getColumn()-1];
+        return pieceAt(checkedSquare(position));
+    }
+
+    /**
+     * Makes a move in place, capturing whatever stands on the end square and
+     * promoting the piece if the move asks for it. A king moving two columns castles,
+     * taking the rook with it, and a pawn moving diagonally onto an empty square
+     * captures en passant. No legality checks are done.
+     *
+     * @param move the move to make
+     * @return an undo record to hand back to {@link #unmakeMove(int)}
+     */
+    public int makeMove(ChessMove move) {
+        return makeMove(Move.of(move));
+    }
+
+    /**
+     * Same as {@link #makeMove(ChessMove)} for a packed move (see {@link Move})
+     */
+    public int makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int moved = pieceIndexAt(from);
+        int captured = pieceIndexAt(to);
+        int enPassant = 0;
+
+        if(captured >= 0){
+            takePiece(captured, to);
+        } else if(moved % 6 == PAWN && (from - to) % 8 != 0){
+            // A pawn only moves diagonally to capture, so the pawn it takes must be beside it
+            int capturedSquare = enPassantCaptureSquare(from, to);
+            captured = pieceIndexAt(capturedSquare);
+            if(captured >= 0){
+                takePiece(captured, capturedSquare);
+                enPassant = 1;
+            }
+        } else if(moved % 6 == KING && Math.abs(to - from) == 2){
+            moveCastlingRook(from, to, false);
+        }
+        takePiece(moved, from);
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        int placed = promotion == null ? moved : pieceIndex(TEAMS[moved / 6], promotion);
+        putPiece(placed, to);
+
+        // Undo record layout: bits 0-5 start square, 6-11 end square, 12-15 moved piece,
+        // 16-19 captured piece + 1 (0 for no capture), 20-23 promoted piece + 1 (0 for none),
+        // 24 set for en passant
+        return from
+                | to << 6
+                | moved << 12
+                | (captured + 1) << 16
+                | (placed == moved ? 0 : placed + 1) << 20
+                | enPassant << 24;
+    }
+
+    /**
+     * Takes back a move made with {@link #makeMove(ChessMove)}, restoring any
+     * captured piece, un-promoting pawns and putting castled rooks back
+     *
+     * @param undo the record returned when the move was made
+     */
+    public void unmakeMove(int undo) {
+        int from = undo & 0x3F;
+        int to = (undo >>> 6) & 0x3F;
+        int moved = (undo >>> 12) & 0xF;
+        int captured = ((undo >>> 16) & 0xF) - 1;
+        int promoted = ((undo >>> 20) & 0xF) - 1;
+
+        takePiece(promoted >= 0 ? promoted : moved, to);
+        putPiece(moved, from);
+        if((undo & 1 << 24) != 0){
+            putPiece(captured, enPassantCaptureSquare(from, to));
+        } else if(captured >= 0){
+            putPiece(captured, to);
+        } else if(moved % 6 == KING && Math.abs(to - from) == 2){
+            moveCastlingRook(from, to, true);
+        }
+    }
+
+    /**
+     * @return the piece on a square (0-63), or null if it's empty
+     */
+    public ChessPiece pieceAt(int square) {
+        int index = pieceIndexAt(square);
+        return index < 0 ? null : ChessPiece.of(TEAMS[index / 6], TYPES[index % 6]);
+    }
+
+    /**
+     * @return the type of the piece on a square (0-63), or null if it's empty
+     */
+    public ChessPiece.PieceType pieceTypeAt(int square) {
+        int index = pieceIndexAt(square);
+        return index < 0 ? null : TYPES[index % 6];
     }
 
+    /**
+     * Finds a piece of the given team and type. The piece masks are kept up to date
+     * as pieces move, so this is a single bit scan rather than a search of the board
+     *
+     * @return the position of the lowest such piece, or null if there are none
+     */
     public ChessPosition findPiece(ChessGame.TeamColor team, ChessPiece.PieceType type){
-        for(int i = 1; i<=8; i++){
-            for(int j = 1; j<=8; j++){
-                ChessPosition checkPosition = new ChessPosition(i,j);
-                ChessPiece piece = getPiece(checkPosition);
-                if(piece!=null && piece.getTeamColor() == team && piece.getPieceType() == type){
-                    return checkPosition;
+        long pieces = pieceBitboards[pieceIndex(team, type)];
+        return pieces == 0 ? null : Bitboards.position(Long.numberOfTrailingZeros(pieces));
+    }
+
+    /**
+     * @return the square (0-63) the team's king is standing on, or -1 if it has no king
+     */
+    public int kingSquare(ChessGame.TeamColor team) {
+        long king = pieceBitboards[pieceIndex(team, ChessPiece.PieceType.KING)];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * @return how many pieces of the given team and type are on the board
+     */
+    public int countPieces(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return Long.bitCount(pieceBitboards[pieceIndex(team, type)]);
+    }
+
+    /**
+     * Determines if neither team has enough material left to ever checkmate: only kings,
+     * kings and a single knight or bishop, or kings and bishops that all stand on the
+     * same color of square
+     *
+     * @return True if the game can't be won by either team
+     */
+    public boolean hasInsufficientMaterial() {
+        long minors = 0L;
+        long bishops = 0L;
+        for (ChessGame.TeamColor team : TEAMS) {
+            int base = team.ordinal() * 6;
+            if ((pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()]
+                    | pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()]
+                    | pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()]) != 0) {
+                return false;
+            }
+            bishops |= pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()];
+            minors |= pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()];
+        }
+        minors |= bishops;
+        if (Long.bitCount(minors) <= 1) {
+            return true;
+        }
+        // Bishops that never share a square color can't cover a king's escape squares
+        return minors == bishops
+                && ((bishops & Bitboards.LIGHT_SQUARES) == 0 || (bishops & ~Bitboards.LIGHT_SQUARES) == 0);
+    }
+
+    /**
+     * Determines if any piece of the given team could capture on a square. Rather than
+     * generating the team's moves, this looks outward from the square: along the slider
+     * rays for bishops, rooks and queens, and at the knight, pawn and king offsets.
+     *
+     * @param position the square to check
+     * @param byColor which team might be attacking it
+     * @return True if a piece of byColor attacks the square
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor byColor) {
+        return isSquareAttacked(checkedSquare(position), byColor);
+    }
+
+    public boolean isSquareAttacked(int square, ChessGame.TeamColor byColor) {
+        return attackersTo(square, byColor, getOccupied()) != 0;
+    }
+
+    /**
+     * Finds every piece of a team that attacks a square, as if the board's occupancy were
+     * the given mask. Passing an occupancy without the defending king lets sliders see
+     * through it, which is what matters when checking where that king may step.
+     *
+     * @return a mask of the attacking pieces
+     */
+    public long attackersTo(int square, ChessGame.TeamColor byColor, long occupied) {
+        int base = byColor.ordinal() * 6;
+        long queens = pieceBitboards[base + ChessPiece.PieceType.QUEEN.ordinal()];
+        long diagonalSliders = queens | pieceBitboards[base + ChessPiece.PieceType.BISHOP.ordinal()];
+        long straightSliders = queens | pieceBitboards[base + ChessPiece.PieceType.ROOK.ordinal()];
+
+        // A pawn attacks this square if a pawn of the other team standing here would attack it back
+        return (Bitboards.pawnAttacksFrom(square, byColor.opponent())
+                        & pieceBitboards[base + ChessPiece.PieceType.PAWN.ordinal()])
+                | (Bitboards.knightAttacksFrom(square) & pieceBitboards[base + ChessPiece.PieceType.KNIGHT.ordinal()])
+                | (Bitboards.kingAttacksFrom(square) & pieceBitboards[base + ChessPiece.PieceType.KING.ordinal()])
+                | (Bitboards.bishopAttacks(square, occupied) & diagonalSliders)
+                | (Bitboards.rookAttacks(square, occupied) & straightSliders);
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on the board, updated as each piece is added or removed
+     */
+    public long getZobristKey() {
+        pieceOnSquare();
+        return zobristKey;
+    }
+
+    /**
+     * Scores the position on material and where each piece stands, blending middlegame values
+     * into endgame values as pieces come off (see {@link PieceSquareTables}). The sums behind it
+     * are updated as each piece is added or removed, so this costs the same on any board.
+     *
+     * @return the score in centipawns, positive when white is ahead
+     */
+    public int evaluate() {
+        pieceOnSquare();
+        return PieceSquareTables.taper(middlegameScore, endgameScore, phase);
+    }
+
+    /**
+     * @return occupancy mask of every piece of the given team and type
+     */
+    public long getPieces(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return pieceBitboards[pieceIndex(team, type)];
+    }
+
+    /**
+     * @return occupancy mask of every piece on the given team
+     */
+    public long getTeamPieces(ChessGame.TeamColor team) {
+        return teamBitboards[team.ordinal()];
+    }
+
+    /**
+     * @return occupancy mask of every piece on the board
+     */
+    public long getOccupied() {
+        return teamBitboards[0] | teamBitboards[1];
+    }
+
+    /**
+     * @return index into the piece masks for the given team and type, 0-5 are white and 6-11 are black
+     */
+    public static int pieceIndex(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return team.ordinal() * 6 + type.ordinal();
+    }
+
+    // Off-board rows and columns would fold onto another square's index, so positions from
+    // outside are checked before they're used
+    private static int checkedSquare(ChessPosition position) {
+        if (!Bitboards.isInBounds(position.getRow(), position.getColumn())) {
+            throw new IndexOutOfBoundsException("Position is off the board: " + position);
+        }
+        return Bitboards.square(position);
+    }
+
+    // Which piece mask has this square set, or -1 if the square is empty
+    private int pieceIndexAt(int square) {
+        return pieceOnSquare()[square] - 1;
+    }
+
+    private byte[] pieceOnSquare() {
+        if(pieceOnSquare == null){
+            pieceOnSquare = new byte[64];
+            zobristKey = 0L;
+            middlegameScore = 0;
+            endgameScore = 0;
+            phase = 0;
+            for(int i = 0; i < pieceBitboards.length; i++){
+                long pieces = pieceBitboards[i];
+                while(pieces != 0){
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    pieceOnSquare[square] = (byte) (i + 1);
+                    zobristKey ^= Zobrist.piece(i, square);
+                    middlegameScore += PieceSquareTables.middlegame(i, square);
+                    endgameScore += PieceSquareTables.endgame(i, square);
+                    phase += PieceSquareTables.phase(i);
+                    pieces &= pieces - 1;
                 }
             }
         }
-        return null;
+        return pieceOnSquare;
+    }
+
+    // Places a piece on an empty square
+    private void putPiece(int index, int square) {
+        byte[] squares = pieceOnSquare();
+        long bit = Bitboards.bit(square);
+        pieceBitboards[index] |= bit;
+        teamBitboards[index / 6] |= bit;
+        squares[square] = (byte) (index + 1);
+        zobristKey ^= Zobrist.piece(index, square);
+        middlegameScore += PieceSquareTables.middlegame(index, square);
+        endgameScore += PieceSquareTables.endgame(index, square);
+        phase += PieceSquareTables.phase(index);
+    }
+
+    // Lifts a piece off the square it's standing on
+    private void takePiece(int index, int square) {
+        byte[] squares = pieceOnSquare();
+        long mask = ~Bitboards.bit(square);
+        pieceBitboards[index] &= mask;
+        teamBitboards[index / 6] &= mask;
+        squares[square] = 0;
+        zobristKey ^= Zobrist.piece(index, square);
+        middlegameScore -= PieceSquareTables.middlegame(index, square);
+        endgameScore -= PieceSquareTables.endgame(index, square);
+        phase -= PieceSquareTables.phase(index);
+    }
+
+    private void clearSquare(int square) {
+        int index = pieceIndexAt(square);
+        if(index >= 0){
+            takePiece(index, square);
+        }
+    }
+
+    // The pawn taken en passant stands on the start row, in the end column
+    private static int enPassantCaptureSquare(int from, int to) {
+        return (from & ~7) | (to & 7);
+    }
+
+    // The rook castles from the corner to the square the king passed over
+    private void moveCastlingRook(int kingFrom, int kingTo, boolean undo) {
+        int corner = kingTo > kingFrom ? kingFrom + 3 : kingFrom - 4;
+        int passed = (kingFrom + kingTo) / 2;
+        int rookFrom = undo ? passed : corner;
+        int rookTo = undo ? corner : passed;
+        int rook = pieceIndexAt(rookFrom);
+        if(rook >= 0){
+            takePiece(rook, rookFrom);
+            putPiece(rook, rookTo);
+        }
+    }
+
+    private static char pieceChar(int index) {
+        char c = switch (TYPES[index % 6]) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return TEAMS[index / 6] == ChessGame.TeamColor.WHITE ? Character.toUpperCase(c) : c;
     }
 
     /**
@@ -111,30 +470,91 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        piecesOnBoard = new ChessPiece[8][8];
-
-        // White Pieces
+        pieceBitboards = new long[12];
+        teamBitboards = new long[2];
+        pieceOnSquare = null;
 
-        // First Row
         for(int i = 0; i<8; i++){
-            piecesOnBoard[0][i] = new ChessPiece(ChessGame.TeamColor.WHITE, INITIAL_ROW_SETUP[i]);
-        }
+            // White back row and pawn row
+            addPiece(ChessPosition.of(1, i+1), ChessPiece.of(ChessGame.TeamColor.WHITE, INITIAL_ROW_SETUP[i]));
+            addPiece(ChessPosition.of(2, i+1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
 
-        // Pawn Row
-        for(int i=0; i<8; i++){
-            piecesOnBoard[1][i] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+            // Black back row and pawn row
+            addPiece(ChessPosition.of(8, i+1), ChessPiece.of(ChessGame.TeamColor.BLACK, INITIAL_ROW_SETUP[i]));
+            addPiece(ChessPosition.of(7, i+1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
         }
+    }
 
-        // Black Pieces
+    /**
+     * Keeps games stored as JSON in the shape they had before the board was backed by
+     * masks: {@code piecesOnBoard}, an 8x8 grid indexed [row-1][col-1] of pieces or nulls.
+     */
+    static final class JsonFormat extends TypeAdapter<ChessBoard> {
 
-        // Back Row
-        for(int i = 0; i<8; i++){
-            piecesOnBoard[7][i] = new ChessPiece(ChessGame.TeamColor.BLACK, INITIAL_ROW_SETUP[i]);
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            out.beginObject().name("piecesOnBoard").beginArray();
+            for(int row = 1; row <= 8; row++){
+                out.beginArray();
+                for(int col = 1; col <= 8; col++){
+                    int index = board.pieceIndexAt(Bitboards.square(row, col));
+                    if(index < 0){
+                        out.nullValue();
+                    } else {
+                        out.beginObject()
+                                .name("pieceColor").value(TEAMS[index / 6].name())
+                                .name("type").value(TYPES[index % 6].name())
+                                .endObject();
+                    }
+                }
+                out.endArray();
+            }
+            out.endArray().endObject();
         }
 
-        // Pawn Row
-        for(int i=0; i<8; i++){
-            piecesOnBoard[6][i] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            ChessBoard board = new ChessBoard();
+            in.beginObject();
+            while(in.hasNext()){
+                switch(in.nextName()){
+                    case "piecesOnBoard" -> readGrid(in, board);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return board;
+        }
+
+        private static void readGrid(JsonReader in, ChessBoard board) throws IOException {
+            in.beginArray();
+            for(int row = 1; in.hasNext(); row++){
+                in.beginArray();
+                for(int col = 1; in.hasNext(); col++){
+                    if(in.peek() == JsonToken.NULL){
+                        in.nextNull();
+                        continue;
+                    }
+                    String team = null;
+                    String type = null;
+                    in.beginObject();
+                    while(in.hasNext()){
+                        switch(in.nextName()){
+                            case "pieceColor" -> team = in.nextString();
+                            case "type" -> type = in.nextString();
+                            default -> in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                    if(team == null || type == null || !Bitboards.isInBounds(row, col)){
+                        throw new IOException("Bad piece at row " + row + ", column " + col);
+                    }
+                    board.putPiece(pieceIndex(ChessGame.TeamColor.valueOf(team), ChessPiece.PieceType.valueOf(type)),
+                            Bitboards.square(row, col));
+                }
+                in.endArray();
+            }
+            in.endArray();
         }
     }
 }
@@ -15,6 +15,48 @@ public class ChessGame {
     private ChessBoard board;
     private TeamColor whosTurnIsIt;
     public boolean gameOver;
+    // Keys of the positions since the last capture or pawn move, oldest first and ending with
+    // the current one. Positions from before an irreversible move can never come back, so
+    // nothing older is kept
+    private PositionHistory positionHistory;
+    private int halfmoveClock;
+    // The state word: castling rights lost in bits 0-3 and the column a pawn can be captured en
+    // passant on in bits 4-7 (0 for none). Rights are kept as lost rather than held so that a
+    // board set up by hand, or a game saved before castling existed, starts with every right
+    // its kings and rooks still allow
+    private int state;
+    // Scratch space for move generation, never serialized
+    private transient MoveList candidateMoves;
+    // The status of the position with key statusKey, worked out once per position, or again
+    // if the history changes
+    private transient GameStatus status;
+    private transient long statusKey;
+
+    private static final int FIFTY_MOVES = 100;
+    // The game is over once the fifty-move rule applies, so no repetition is older than this
+    static final int MAX_HISTORY = FIFTY_MOVES + 1;
+
+    // Castling right bits, in the state word and in the rights handed to MoveGenerator
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+    private static final int EN_PASSANT_SHIFT = 4;
+    private static final int EN_PASSANT_MASK = 0xF << EN_PASSANT_SHIFT;
+    // The rights lost when a piece moves from or to each square: a king or rook moving away,
+    // or a rook being captured in its corner
+    private static final int[] RIGHTS_LOST = new int[64];
+    private static final TeamColor[] TEAMS = TeamColor.values();
+
+    static {
+        RIGHTS_LOST[castlingKingSquare(TeamColor.WHITE)] = WHITE_KINGSIDE | WHITE_QUEENSIDE;
+        RIGHTS_LOST[Bitboards.square(1, 8)] = WHITE_KINGSIDE;
+        RIGHTS_LOST[Bitboards.square(1, 1)] = WHITE_QUEENSIDE;
+        RIGHTS_LOST[castlingKingSquare(TeamColor.BLACK)] = BLACK_KINGSIDE | BLACK_QUEENSIDE;
+        RIGHTS_LOST[Bitboards.square(8, 8)] = BLACK_KINGSIDE;
+        RIGHTS_LOST[Bitboards.square(8, 1)] = BLACK_QUEENSIDE;
+    }
 
     public ChessGame() {
         whosTurnIsIt = TeamColor.WHITE;
@@ -23,6 +65,16 @@ public class ChessGame {
         gameOver=false;
     }
 
+    // Copy constructor, so a position can be searched or analysed without touching the game itself
+    public ChessGame(ChessGame that) {
+        this.board = new ChessBoard(that.board);
+        this.whosTurnIsIt = that.whosTurnIsIt;
+        this.gameOver = that.gameOver;
+        this.positionHistory = that.positionHistory == null ? null : new PositionHistory(that.positionHistory);
+        this.halfmoveClock = that.halfmoveClock;
+        this.state = that.state;
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -37,6 +89,8 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         whosTurnIsIt = team;
+        // An en passant capture is only open to the team right after the other team's move
+        state &= ~EN_PASSANT_MASK;
     }
 
     /**
@@ -44,7 +98,14 @@ public class ChessGame {
      */
     public enum TeamColor {
         WHITE,
-        BLACK
+        BLACK;
+
+        /**
+         * @return the team playing against this one
+         */
+        public TeamColor opponent() {
+            return this == WHITE ? BLACK : WHITE;
+        }
     }
 
     @Override
@@ -71,6 +132,48 @@ public class ChessGame {
         return Objects.hashCode(board);
     }
 
+    /**
+     * A 64-bit Zobrist key for the current position: the board's key, which is updated
+     * as pieces are added and removed, combined with whose turn it is, the castling rights
+     * and the en passant column. Two positions
+     * with the same pieces and side to move always have the same key, so caches and
+     * repetition checks can compare longs instead of whole boards.
+     *
+     * @return the position's key
+     */
+    public long positionKey() {
+        long key = board.getZobristKey() ^ Zobrist.castling(getCastlingRights());
+        int enPassantColumn = enPassantColumn(state);
+        if (enPassantColumn != 0) {
+            key ^= Zobrist.enPassant(enPassantColumn);
+        }
+        return whosTurnIsIt == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
+    /**
+     * Gets the castling rights the game still holds. A right is held until its king or
+     * rook moves or the rook is captured, and only while both stand on their starting squares.
+     *
+     * @return a mask of WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE bits
+     */
+    public int getCastlingRights() {
+        int rights = ALL_CASTLING & ~state;
+        for (TeamColor team : TEAMS) {
+            int home = castlingKingSquare(team);
+            long rooks = board.getPieces(team, ChessPiece.PieceType.ROOK);
+            if ((board.getPieces(team, ChessPiece.PieceType.KING) & Bitboards.bit(home)) == 0) {
+                rooks = 0L;
+            }
+            if ((rooks & Bitboards.bit(home + 3)) == 0) {
+                rights &= ~castlingRight(team, true);
+            }
+            if ((rooks & Bitboards.bit(home - 4)) == 0) {
+                rights &= ~castlingRight(team, false);
+            }
+        }
+        return rights;
+    }
+
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -81,35 +184,85 @@ public class ChessGame {
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
         if(this.board.getPiece(startPosition)==null){
             return null;
-        } else{
-            Collection<ChessMove> pieceMoves = this.board.getPiece(startPosition).pieceMoves(this.board, startPosition);
-
-            // This board is meant to test every move of the piece at startPosition
-            // to see if it is safe to make without getting the king killed
-
-
-            // 1) Loop through each possible move
-            Collection<ChessMove> listOfValidMoves = new ArrayList<>();
-            for(ChessMove move : pieceMoves){
-                // 2) create a board having done that move
-                ChessBoard testBoard = new ChessBoard(this.board);
-                ChessPiece movingPiece = this.board.getPiece(move.getStartPosition());
-
-                testBoard.removePiece(move.getStartPosition());
-                testBoard.addPiece(move.getEndPosition(), movingPiece);
+        }
+        Collection<ChessMove> listOfValidMoves = new ArrayList<>();
+        addValidMoves(startPosition, listOfValidMoves);
+        return listOfValidMoves;
+    }
 
-                // 3) See if we are still in check
-                if(!isInCheck(movingPiece.getTeamColor(), testBoard)){
-                    // 4) If not, add that to the movesToGetOutOfCheck ArrayList
-                    listOfValidMoves.add(new ChessMove(move));
-                }
-            }
+    /**
+     * Same as {@link #validMoves(ChessPosition)}, but adds the moves to a collection the
+     * caller owns. Candidate moves are generated into a buffer the game reuses, so with a
+     * reused collection this doesn't allocate anything.
+     *
+     * @param startPosition the piece to get valid moves for
+     * @param validMoves where to put the moves, nothing is added if there's no piece
+     */
+    public void addValidMoves(ChessPosition startPosition, Collection<ChessMove> validMoves) {
+        MoveList pieceMoves = candidateMoves();
+        int start = Bitboards.square(startPosition);
+        ChessPiece piece = this.board.pieceAt(start);
+        if (piece != null) {
+            MoveGenerator.addLegalPieceMoves(this.board, start, generatorState(piece.getTeamColor()), pieceMoves);
+        }
+        pieceMoves.addTo(validMoves);
+    }
 
+    /**
+     * Gets every legal move for a team in one pass over the board. Checks and pins are
+     * worked out once for the position rather than by trying each move.
+     *
+     * @param team which team to get moves for
+     * @return every move the team could legally make, whether or not it's their turn
+     */
+    public Collection<ChessMove> legalMoves(TeamColor team) {
+        MoveList moves = candidateMoves();
+        addLegalMoves(team, moves);
+        return moves.toChessMoves();
+    }
 
+    /**
+     * Same as {@link #legalMoves(TeamColor)}, but adds packed moves (see {@link Move}) to a
+     * list the caller owns, for search and perft
+     */
+    public void addLegalMoves(TeamColor team, MoveList moves) {
+        MoveGenerator.addLegalMoves(this.board, team, generatorState(team), moves);
+    }
 
-            // Return those moves that will not place the team in check.
-            return listOfValidMoves;
+    /**
+     * Checks whether a move is one of {@link #validMoves(ChessPosition)} for the piece at its
+     * start, without generating the piece's other moves. Only the move's own target is
+     * looked up, and king safety is tested once for that move.
+     *
+     * @param move the move to check
+     * @return True if the piece at the move's start may legally make it, whether or not
+     * it's that team's turn
+     */
+    public boolean isLegal(ChessMove move) {
+        ChessPosition from = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        // Off-board coordinates would fold onto a real square's index
+        if (!Bitboards.isInBounds(from.getRow(), from.getColumn())
+                || !Bitboards.isInBounds(end.getRow(), end.getColumn())) {
+            return false;
         }
+        int start = Bitboards.square(from);
+        ChessPiece piece = this.board.pieceAt(start);
+        return piece != null && MoveGenerator.isLegal(this.board, start, Bitboards.square(end),
+                move.getPromotionPiece(), generatorState(piece.getTeamColor()));
+    }
+
+    /**
+     * Same as {@link #isLegal(ChessMove)} for a packed move (see {@link Move}), except that
+     * the piece must also belong to the team to move. Search uses it on moves remembered
+     * from other positions before trusting them in this one.
+     */
+    public boolean isLegal(int move) {
+        int start = Move.from(move);
+        ChessPiece piece = this.board.pieceAt(start);
+        return piece != null && piece.getTeamColor() == whosTurnIsIt
+                && MoveGenerator.isLegal(this.board, start, Move.to(move), Move.promotion(move),
+                generatorState(whosTurnIsIt));
     }
 
     /**
@@ -119,33 +272,147 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
-        // If the move is valid
-        if(validMoves(move.getStartPosition())==null) {
+        ChessPosition start = move.getStartPosition();
+        if(!Bitboards.isInBounds(start.getRow(), start.getColumn())){
+            throw new InvalidMoveException("The move starts off the board! " + move);
+        }
+        ChessPiece piece = this.board.getPiece(start);
+        if(piece==null) {
             throw new InvalidMoveException("The board has no piece at the move's start position! " + move);
         }
 
-
-        if(validMoves(move.getStartPosition()).contains(move)){
-            if (this.board.getPiece(move.getStartPosition()) == null) {
-                throw new InvalidMoveException("The board has no piece at the move's start position!");
-            }
-            if (this.board.getPiece(move.getStartPosition()).getTeamColor()!=whosTurnIsIt) {
+        if(isLegal(move)){
+            if (piece.getTeamColor()!=whosTurnIsIt) {
                 throw new InvalidMoveException("Wrong persons turn! It's actually " + whosTurnIsIt + "'s turn!");
             }
 
-            ChessPiece movingPiece =
-                    (move.getPromotionPiece() == null) ? this.board.getPiece(move.getStartPosition())
-                            : new ChessPiece(whosTurnIsIt, move.getPromotionPiece());
-
-            board.removePiece(move.getStartPosition());
-            board.addPiece(move.getEndPosition(), movingPiece);
+            // The board may have been set up by hand since the last move, which starts a new history
+            long key = positionKey();
+            if(positionHistory == null){
+                positionHistory = new PositionHistory(MAX_HISTORY);
+                positionHistory.reset(key);
+            } else if(positionHistory.last() != key){
+                positionHistory.reset(key);
+            }
 
-            switchWhosTurnItIs();
+            makeMove(Move.of(move));
+            recordPosition();
+            updateStatus();
+            if(status.isGameOver()){
+                gameOver = true;
+            }
         } else{
             throw new InvalidMoveException("Invalid Move! "+ move);
         }
     }
 
+    /**
+     * Makes a packed move (see {@link Move}) without checking that it's legal, for search
+     * and perft. The board, turn, castling rights, en passant column and halfmove clock
+     * are all updated, but the position isn't added to the repetition history and the
+     * game's status isn't worked out.
+     *
+     * @param move the move to make
+     * @return an undo record to hand back to {@link #unmakeMove(long)}
+     */
+    public long makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean pawn = board.pieceTypeAt(from) == ChessPiece.PieceType.PAWN;
+        int boardUndo = board.makeMove(move);
+        // Undo record layout: bits 0-31 the board's undo record, 32-39 the state word,
+        // 40 and up the halfmove clock
+        long undo = (boardUndo & 0xFFFFFFFFL) | (long) state << 32 | (long) halfmoveClock << 40;
+
+        state = (state & ALL_CASTLING) | RIGHTS_LOST[from] | RIGHTS_LOST[to];
+        // Only remember a double step if an enemy pawn could take it, so the key of the
+        // position doesn't depend on a capture nobody can make
+        if (pawn && Math.abs(to - from) == 16
+                && (Bitboards.pawnAttacksFrom((from + to) / 2, whosTurnIsIt)
+                & board.getPieces(whosTurnIsIt.opponent(), ChessPiece.PieceType.PAWN)) != 0) {
+            state |= Bitboards.column(to) << EN_PASSANT_SHIFT;
+        }
+        boolean capture = (boardUndo >>> 16 & 0xF) != 0;
+        halfmoveClock = pawn || capture ? 0 : halfmoveClock + 1;
+        switchWhosTurnItIs();
+        return undo;
+    }
+
+    /**
+     * Takes back a move made with {@link #makeMove(int)}
+     *
+     * @param undo the record returned when the move was made
+     */
+    public void unmakeMove(long undo) {
+        switchWhosTurnItIs();
+        board.unmakeMove((int) undo);
+        state = (int) (undo >>> 32) & 0xFF;
+        halfmoveClock = (int) (undo >>> 40);
+    }
+
+    /**
+     * Gets whether anyone is in check, checkmate or stalemate, or whether the game has been
+     * drawn by repetition, the fifty-move rule or insufficient material. This is worked out once
+     * when a move is made and cached, so reading it repeatedly is free. If the board
+     * or turn is changed some other way, or the game was just deserialized, it's
+     * worked out again on the next call.
+     *
+     * @return the status of the current position
+     */
+    public GameStatus getStatus() {
+        if (status == null || statusKey != positionKey()) {
+            updateStatus();
+        }
+        return status;
+    }
+
+    /**
+     * @return the keys (see {@link #positionKey()}) of the positions since the last capture or
+     * pawn move, oldest first and ending with the current one; only the current one if the
+     * earlier positions aren't known, as for a board set up by hand or loaded from FEN
+     */
+    public long[] getPositionHistory() {
+        long key = positionKey();
+        if(positionHistory == null || positionHistory.last() != key){
+            return new long[]{key};
+        }
+        return positionHistory.toArray();
+    }
+
+    /**
+     * @return how many moves have been made since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    // Sets the castling rights and en passant column for a position loaded from FEN. As in
+    // makeMove, the column is only kept if a pawn of the team to move could capture there
+    void setState(int castlingRights, int enPassantColumn) {
+        state = ALL_CASTLING & ~castlingRights;
+        if (enPassantColumn != 0) {
+            int target = Bitboards.square(whosTurnIsIt == TeamColor.WHITE ? 6 : 3, enPassantColumn);
+            if ((Bitboards.pawnAttacksFrom(target, whosTurnIsIt.opponent())
+                    & board.getPieces(whosTurnIsIt, ChessPiece.PieceType.PAWN)) != 0) {
+                state |= enPassantColumn << EN_PASSANT_SHIFT;
+            }
+        }
+    }
+
+    /**
+     * @return the column (1-8) a pawn of the team to move can capture en passant on, or 0.
+     * A double pawn move only sets it when a pawn stands ready to make the capture
+     */
+    public int getEnPassantColumn() {
+        return enPassantColumn(state);
+    }
+
+    // Sets the halfmove clock for a position loaded from FEN, whose earlier positions aren't known
+    void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+        positionHistory = null;
+    }
+
     /**
      * Implements the function below with the current Game's ChessBoard
      */
@@ -161,23 +428,14 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor, ChessBoard boardToCheck) {
-        ChessPosition kingPosition = boardToCheck.findPiece(teamColor, ChessPiece.PieceType.KING);
+        int kingSquare = boardToCheck.kingSquare(teamColor);
         // If there is no king, then you're not in check
         // Haha, this is mostly for testing purposes
-        if (kingPosition==null) {
+        if (kingSquare < 0) {
             return false;
         }
-        TeamColor otherTeamColor = teamColor==TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
-        Collection<ChessMove> otherTeamsPossibleMoves = getAllPossibleMoves(otherTeamColor, boardToCheck);
-
-        for(ChessMove move : otherTeamsPossibleMoves){
-            if(move.getEndPosition().getRow() == kingPosition.getRow()
-                    && move.getEndPosition().getColumn() == kingPosition.getColumn()){
-                return true;
-            }
-        }
-
-        return false;
+        // Look outward from the king instead of generating every enemy move
+        return boardToCheck.isSquareAttacked(kingSquare, teamColor.opponent());
     }
 
     /**
@@ -187,34 +445,8 @@ public class ChessGame {
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-//        Future use validMoves to abstract out most of this code
-
-        Collection<ChessMove> checkedTeamPossibleMoves = getAllPossibleMoves(teamColor, this.board);
-
-        // This board is meant to test every move of the checked team
-        // to see if the enemy can still kill the king after that move
-
-
-        // 1) Loop through each possible move
-        Collection<ChessMove> movesToGetOutOfCheck = new ArrayList<>();
-        for(ChessMove move : checkedTeamPossibleMoves){
-            // 2) create a board having done that move
-            ChessBoard testBoard = new ChessBoard(this.board);
-            ChessPiece movingPiece = this.board.getPiece(move.getStartPosition());
-
-            testBoard.removePiece(move.getStartPosition());
-            testBoard.addPiece(move.getEndPosition(), movingPiece);
-
-            // 3) See if we are still in check
-            if(!isInCheck(teamColor, testBoard)){
-                // 4) If not, add that to the movesToGetOutOfCheck ArrayList
-                movesToGetOutOfCheck.add(new ChessMove(move));
-            }
-        }
-
-        // If there is no way to get out of check, then return that we are in Checkmate
-        return movesToGetOutOfCheck.isEmpty();
-
+        // In check, and no legal move gets the king out of it
+        return isInCheck(teamColor) && !hasAnyLegalMove(teamColor);
     }
 
     /**
@@ -225,26 +457,32 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        ChessPosition kingPosition = board.findPiece(teamColor, ChessPiece.PieceType.KING);
+        int kingSquare = board.kingSquare(teamColor);
         // If there is no king, then you're not in stalemate
         // Haha, this is mostly for testing purposes
-        if (kingPosition==null) {
+        if (kingSquare < 0) {
             return false;
         }
 
-        TeamColor otherTeamColor = teamColor==TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
-        Collection<ChessMove> otherTeamsPossibleMoves = getAllPossibleMoves(otherTeamColor, board);
-        for(ChessMove move : otherTeamsPossibleMoves){
-            // If the king is being attacked, it's not a stalemate
-            // Instead, it should be a check or checkmate
-            if(move.getEndPosition().getRow() == kingPosition.getRow()
-                    && move.getEndPosition().getColumn() == kingPosition.getColumn()){
-                return false;
-            }
+        // If the king is being attacked, it's not a stalemate
+        // Instead, it should be a check or checkmate
+        if(board.isSquareAttacked(kingSquare, teamColor.opponent())){
+            return false;
         }
 
+        return !hasAnyLegalMove(teamColor);
+    }
 
-        return isInCheckmate(teamColor);
+    /**
+     * Determines if the given team has any legal move, stopping at the first one found
+     * instead of listing them all. King moves are tried first, then captures and blocks
+     * of a lone checker, so this is usually much cheaper than {@link #legalMoves}.
+     *
+     * @param teamColor which team to look for moves for
+     * @return True if the team could make at least one move
+     */
+    public boolean hasAnyLegalMove(TeamColor teamColor) {
+        return MoveGenerator.hasLegalMove(this.board, teamColor, generatorState(teamColor));
     }
 
     /**
@@ -254,6 +492,11 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        // Castling rights follow from where the kings and rooks stand on the new board, and
+        // no earlier positions count towards the fifty-move rule or a repetition
+        state = 0;
+        halfmoveClock = 0;
+        positionHistory = null;
     }
 
     /**
@@ -265,19 +508,86 @@ public class ChessGame {
         return this.board;
     }
 
-    private Collection<ChessMove> getAllPossibleMoves(TeamColor team, ChessBoard boardToCheck){
-        Collection<ChessMove> possibleMoves = new ArrayList<>();
-        for(int i = 1; i<=8; i++){
-            for(int j = 1; j<=8; j++){
-                ChessPosition checkPosition = new ChessPosition(i,j);
-                ChessPiece piece = boardToCheck.getPiece(checkPosition);
-                if(piece!=null && piece.getTeamColor() == team){
-                    possibleMoves.addAll(piece.pieceMoves(boardToCheck,checkPosition));
-                }
+    // Only the team to move can be checkmated or stalemated, but boards set up by hand
+    // can leave the other team in check too. Checkmate and stalemate take priority over draws
+    private void updateStatus(){
+        TeamColor team = whosTurnIsIt;
+        boolean inCheck = isInCheck(team);
+        if(!inCheck && isInCheck(team.opponent())){
+            status = new GameStatus(GameStatus.State.CHECK, team.opponent());
+        } else if(board.kingSquare(team) >= 0 && !hasAnyLegalMove(team)){
+            status = new GameStatus(inCheck ? GameStatus.State.CHECKMATE : GameStatus.State.STALEMATE, team);
+        } else if(board.hasInsufficientMaterial()){
+            status = new GameStatus(GameStatus.State.INSUFFICIENT_MATERIAL, null);
+        } else if(isThreefoldRepetition()){
+            status = new GameStatus(GameStatus.State.THREEFOLD_REPETITION, null);
+        } else if(halfmoveClock >= FIFTY_MOVES){
+            status = new GameStatus(GameStatus.State.FIFTY_MOVE_RULE, null);
+        } else {
+            status = inCheck ? new GameStatus(GameStatus.State.CHECK, team) : GameStatus.NORMAL;
+        }
+        statusKey = positionKey();
+    }
+
+    // Only positions since the last irreversible move with the same team to move can match,
+    // so this looks at every other entry going back at most halfmoveClock moves
+    private boolean isThreefoldRepetition(){
+        if(positionHistory == null){
+            return false;
+        }
+        long key = positionKey();
+        int current = positionHistory.size() - 1;
+        if(positionHistory.get(current) != key){
+            return false;
+        }
+        int oldest = Math.max(0, current - halfmoveClock);
+        int repeats = 0;
+        for(int i = current - 2; i >= oldest; i -= 2){
+            if(positionHistory.get(i) == key && ++repeats == 2){
+                return true;
             }
         }
+        return false;
+    }
 
-        return possibleMoves;
+    // The castling rights held and, for the team to move, the en passant column, as MoveGenerator expects
+    private int generatorState(TeamColor team){
+        int rights = getCastlingRights();
+        return team == whosTurnIsIt ? rights | (state & EN_PASSANT_MASK) : rights;
+    }
+
+    static int enPassantColumn(int state){
+        return (state & EN_PASSANT_MASK) >>> EN_PASSANT_SHIFT;
+    }
+
+    static int castlingRight(TeamColor team, boolean kingside){
+        if(team == TeamColor.WHITE){
+            return kingside ? WHITE_KINGSIDE : WHITE_QUEENSIDE;
+        }
+        return kingside ? BLACK_KINGSIDE : BLACK_QUEENSIDE;
+    }
+
+    // The square a king has to be on to castle
+    static int castlingKingSquare(TeamColor team){
+        return team == TeamColor.WHITE ? Bitboards.square(1, 5) : Bitboards.square(8, 5);
+    }
+
+    // Adds the position just reached, starting over after an irreversible move
+    private void recordPosition(){
+        if(halfmoveClock == 0){
+            positionHistory.reset(positionKey());
+        } else {
+            positionHistory.add(positionKey());
+        }
+    }
+
+    // The reusable buffer candidate moves are generated into, emptied for the caller
+    private MoveList candidateMoves(){
+        if(candidateMoves == null){
+            candidateMoves = new MoveList();
+        }
+        candidateMoves.clear();
+        return candidateMoves;
     }
 
     // If it is currently white's turn, make it black's turn
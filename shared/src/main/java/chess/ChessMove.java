@@ -38,7 +38,8 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startPosition, endPosition, promotionPiece);
+        int hash = 31 * Objects.hashCode(startPosition) + Objects.hashCode(endPosition);
+        return 31 * hash + (promotionPiece == null ? 0 : promotionPiece.ordinal() + 1);
     }
 
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
@@ -49,6 +50,50 @@ public class ChessMove {
     }
 
 
+    // Shared instances for every start/end square pair, and for each promotion piece where a pawn
+    // could promote, so generating moves doesn't allocate them
+    private static final ChessMove[] MOVES = new ChessMove[64 * 64];
+    private static final ChessMove[] PROMOTIONS = new ChessMove[64 * 64 * 4];
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                MOVES[from * 64 + to] = new ChessMove(Bitboards.position(from), Bitboards.position(to), null);
+            }
+        }
+        // Pawns promote going from the 7th row to the 8th, or from the 2nd to the 1st
+        for (int col = 1; col <= 8; col++) {
+            for (int toCol = Math.max(1, col - 1); toCol <= Math.min(8, col + 1); toCol++) {
+                addPromotions(Bitboards.square(7, col), Bitboards.square(8, toCol));
+                addPromotions(Bitboards.square(2, col), Bitboards.square(1, toCol));
+            }
+        }
+    }
+
+    private static void addPromotions(int from, int to) {
+        for (int i = 0; i < ChessPiece.PROMOTION_TYPES.length; i++) {
+            PROMOTIONS[(from * 64 + to) * 4 + i] =
+                    new ChessMove(Bitboards.position(from), Bitboards.position(to), ChessPiece.PROMOTION_TYPES[i]);
+        }
+    }
+
+    /**
+     * Gets the shared move between two squares (numbered as in {@link Bitboards})
+     *
+     * @param promotionPiece what a pawn promotes to, or null
+     * @return the shared move, or a new one if there is no shared move for that promotion
+     */
+    public static ChessMove of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        if (promotionPiece == null) {
+            return MOVES[from * 64 + to];
+        }
+        for (int i = 0; i < ChessPiece.PROMOTION_TYPES.length; i++) {
+            if (ChessPiece.PROMOTION_TYPES[i] == promotionPiece && PROMOTIONS[(from * 64 + to) * 4 + i] != null) {
+                return PROMOTIONS[(from * 64 + to) * 4 + i];
+            }
+        }
+        return new ChessMove(Bitboards.position(from), Bitboards.position(to), promotionPiece);
+    }
+
     // Constructor to copy one ChessMove to another
     public ChessMove(ChessMove that) {
         this.startPosition = that.startPosition;
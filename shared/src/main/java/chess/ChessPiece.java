@@ -1,8 +1,7 @@
 package chess;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -12,6 +11,11 @@ import java.util.Objects;
  */
 public class ChessPiece {
 
+    // What a pawn can promote to, in the order promotion moves are generated
+    static final PieceType[] PROMOTION_TYPES = {
+            PieceType.QUEEN, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK
+    };
+
     private final ChessGame.TeamColor pieceColor;
     private final PieceType type;
 
@@ -26,6 +30,24 @@ public class ChessPiece {
         this.type = that.type;
     }
 
+    // Pieces are immutable, so the board hands out one shared instance per team and type
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[team.ordinal() * 6 + type.ordinal()] = new ChessPiece(team, type);
+            }
+        }
+    }
+
+    /**
+     * @return the shared instance for the given team and type
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, PieceType type) {
+        return PIECES[pieceColor.ordinal() * 6 + type.ordinal()];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -73,7 +95,7 @@ public class ChessPiece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(pieceColor, type);
+        return pieceColor.ordinal() * 6 + type.ordinal();
     }
 
     /**
@@ -84,159 +106,32 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        Collection<ChessMove> possibleMoves = new java.util.ArrayList<>(List.of());
-        if(this.type==PieceType.BISHOP || this.type==PieceType.QUEEN){
-            // Check Four Diagonal Directions
-            possibleMoves.addAll(checkLongPath(board,myPosition, -1, 1));
-            possibleMoves.addAll(checkLongPath(board,myPosition, 1, -1));
-            possibleMoves.addAll(checkLongPath(board,myPosition,1,1));
-            possibleMoves.addAll(checkLongPath(board,myPosition, -1, -1));
-        }
-        if(this.type==PieceType.ROOK ||this.type==PieceType.QUEEN){
-            // Check in four straight lines
-            possibleMoves.addAll(checkLongPath(board,myPosition, 0, 1));
-            possibleMoves.addAll(checkLongPath(board,myPosition, 1, 0));
-            possibleMoves.addAll(checkLongPath(board,myPosition,-1,0));
-            possibleMoves.addAll(checkLongPath(board,myPosition, 0, -1));
-        }
-
-        else if(this.type==PieceType.KING){
-            // Check adjacent tiles
-            possibleMoves.addAll(checkShortPath(board,myPosition, 0, 1));
-            possibleMoves.addAll(checkShortPath(board,myPosition, 1, 0));
-            possibleMoves.addAll(checkShortPath(board,myPosition, -1, 0));
-            possibleMoves.addAll(checkShortPath(board,myPosition, 0, -1));
-
-            // Check diagonal tiles
-            possibleMoves.addAll(checkShortPath(board,myPosition, 1, 1));
-            possibleMoves.addAll(checkShortPath(board,myPosition, 1, -1));
-            possibleMoves.addAll(checkShortPath(board,myPosition, -1, 1));
-            possibleMoves.addAll(checkShortPath(board,myPosition, -1, -1));
-        }
-
-        else if(this.type==PieceType.KNIGHT){
-            // Check Right Side
-            possibleMoves.addAll(checkShortPath(board,myPosition, 1, 2));
-            possibleMoves.addAll(checkShortPath(board,myPosition, 2, 1));
-            possibleMoves.addAll(checkShortPath(board,myPosition, 2, -1));
-            possibleMoves.addAll(checkShortPath(board,myPosition, 1, -2));
-
-            // Check Left Side
-            possibleMoves.addAll(checkShortPath(board,myPosition, -1, 2));
-            possibleMoves.addAll(checkShortPath(board,myPosition, -2, 1));
-            possibleMoves.addAll(checkShortPath(board,myPosition, -2, -1));
-            possibleMoves.addAll(checkShortPath(board,myPosition, -1, -2));
-        }
-
-        else if(this.type==PieceType.PAWN){
-            // Check Forward
-            int offsetY = pieceColor==ChessGame.TeamColor.WHITE ? 1 : -1;
-            ChessPosition forwardSpot = new ChessPosition(myPosition.getRow()+offsetY, myPosition.getColumn());
-
-
-            if(forwardSpot.isInBounds() &&
-                    board.getPiece(forwardSpot)==null){
-                addPawnPromotionMoves(possibleMoves,myPosition,forwardSpot,board);
-
-                // If the forward spot is open, then we can check for the second
-                // forward spot and if it's the first move
-
-                // Check White initial move
-                if(this.pieceColor==ChessGame.TeamColor.WHITE
-                        && myPosition.getRow()==2){
-                    ChessPosition newMoveSpot = new ChessPosition(myPosition.getRow()+2,myPosition.getColumn());
-                    if(board.getPiece(newMoveSpot) == null){
-                        possibleMoves.add(new ChessMove(myPosition,newMoveSpot,null));
-                    }
-                }
-                // Check Black initial move
-                if(this.pieceColor==ChessGame.TeamColor.BLACK
-                        && myPosition.getRow()==7){
-                    ChessPosition newMoveSpot = new ChessPosition(myPosition.getRow()-2,myPosition.getColumn());
-                    if(board.getPiece(newMoveSpot) == null){
-                        possibleMoves.add(new ChessMove(myPosition,newMoveSpot,null));
-                    }
-                }
-            }
-
-            // Check Attacks
-
-            // Left Attack
-            ChessPosition forwardLeft = new ChessPosition(forwardSpot.getRow(),forwardSpot.getColumn()-1);
-            if(forwardLeft.isInBounds() &&
-                    board.getPiece(forwardLeft)!=null &&
-                    board.getPiece(forwardLeft).pieceColor!=this.pieceColor){
-                addPawnPromotionMoves(possibleMoves,myPosition,forwardLeft,board);
-            }
-
-            // Right Attack
-            ChessPosition forwardRight = new ChessPosition(forwardSpot.getRow(),forwardSpot.getColumn()+1);
-            // Check if about to be promoted (Let's do this last)
-            if(forwardRight.isInBounds() &&
-                    board.getPiece(forwardRight)!=null &&
-                    board.getPiece(forwardRight).pieceColor!=this.pieceColor){
-                addPawnPromotionMoves(possibleMoves,myPosition,forwardRight,board);
-            }
-        }
-
+        Collection<ChessMove> possibleMoves = new ArrayList<>();
+        addPieceMoves(board, myPosition, possibleMoves);
         return possibleMoves;
     }
 
-    private Collection<ChessMove> checkLongPath(ChessBoard board, ChessPosition myPosition, int dirX, int dirY) {
-        Collection<ChessMove> possibleMoves = new java.util.ArrayList<>(List.of());
-        ChessPosition currentSpot = new ChessPosition(myPosition.getRow()+dirY, myPosition.getColumn()+dirX);
-//             Needs to check if the spot is empty
-//             or if it is out of bounds
-        while(currentSpot.isInBounds()){
-            if(board.getPiece(currentSpot)!=null) {
-                if(board.getPiece(currentSpot).pieceColor!=this.pieceColor) {
-                    possibleMoves.add(new ChessMove(myPosition,new ChessPosition(currentSpot.getRow(), currentSpot.getColumn()),null));
-                }
-                break;
-            } else{
-                possibleMoves.add(new ChessMove(myPosition,new ChessPosition(currentSpot.getRow(), currentSpot.getColumn()),null));
-                currentSpot.offset(dirX,dirY);
-            }
-
-        }
-
-        return possibleMoves;
-    }
-
-    private Collection<ChessMove> checkShortPath(ChessBoard board, ChessPosition myPosition, int dirX, int dirY) {
-        Collection<ChessMove> possibleMoves = new java.util.ArrayList<>(List.of());
-        ChessPosition currentSpot = new ChessPosition(myPosition.getRow()+dirY, myPosition.getColumn()+dirX);
-        if(currentSpot.isInBounds() &&
-                (board.getPiece(currentSpot)==null ||
-                board.getPiece(currentSpot).pieceColor!=this.pieceColor)) {
-            possibleMoves.add(new ChessMove(myPosition,new ChessPosition(currentSpot.getRow(), currentSpot.getColumn()),null));
-        }
-        return possibleMoves;
-    }
-
-    private void addPawnPromotionMoves(Collection<ChessMove> possibleMoves,
-                                       ChessPosition myPosition,
-                                       ChessPosition forwardSpot,
-                                       ChessBoard board){
-        // Check if it should be promoted
-        if(
-           ((this.pieceColor == ChessGame.TeamColor.WHITE && forwardSpot.getRow() == 8)
-        || (this.pieceColor == ChessGame.TeamColor.BLACK && forwardSpot.getRow() == 1))
-
-        ){
-            for(ChessPiece.PieceType p : PieceType.values()){
+    /**
+     * Same as {@link #pieceMoves(ChessBoard, ChessPosition)}, but adds the moves to a
+     * collection the caller owns. The moves are shared instances, so with a reused
+     * collection this doesn't allocate anything.
+     *
+     * @param possibleMoves where to put the moves
+     */
+    public void addPieceMoves(ChessBoard board, ChessPosition myPosition, Collection<ChessMove> possibleMoves) {
+        int from = Bitboards.square(myPosition);
+        long targets = MoveGenerator.targets(board, this.pieceColor, this.type, from);
+        while(targets != 0){
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if(this.type == PieceType.PAWN && MoveGenerator.isPromotionSquare(this.pieceColor, to)){
                 //For every piece available, add that as a possible move
-
-                if(p != PieceType.KING && p != PieceType.PAWN){
-                    possibleMoves.add(new ChessMove(myPosition,forwardSpot,p));
+                for(PieceType p : PROMOTION_TYPES){
+                    possibleMoves.add(ChessMove.of(from, to, p));
                 }
+            } else {
+                possibleMoves.add(ChessMove.of(from, to, null));
             }
         }
-
-        // Otherwise, just add the move without a promotion
-        else {
-            possibleMoves.add(new ChessMove(myPosition,forwardSpot,null));
-        }
-
     }
 }
@@ -1,8 +1,5 @@
 package chess;
 
-import java.util.Map;
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -15,14 +12,33 @@ public class ChessPosition {
             'a','b','c','d','e','f','g','h'
     };
 
-    private int row;
-    private int col;
+    // One shared, immutable instance per square so move generation doesn't allocate positions
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int i = 0; i < 64; i++) {
+            SQUARES[i] = new ChessPosition(i / 8 + 1, i % 8 + 1);
+        }
+    }
+
+    private final int row;
+    private final int col;
 
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * @return the shared instance for an on-board square, or a new position if it's off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row >= 1 && row <= 8 && col >= 1 && col <= 8) {
+            return SQUARES[(row - 1) * 8 + (col - 1)];
+        }
+        return new ChessPosition(row, col);
+    }
+
     @Override
     public String toString() {
         return "[" + row +
@@ -44,7 +60,7 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
     }
 
     /**
@@ -63,25 +79,6 @@ public class ChessPosition {
         return this.col;
     }
 
-    /**
-     * Change the Row
-     */
-    public void setRow(int row) {
-        this.row=row;
-    }
-
-    /**
-     * Change the Column
-     */
-    public void setColumn(int col) {
-        this.col = col;
-    }
-
-    public void offset(int offsetCol, int offSetRow){
-        this.col+=offsetCol;
-        this.row+=offSetRow;
-    }
-
     public boolean isInBounds(){
         return col > 0 && col <= 8
                 && row > 0 && row <= 8;
@@ -0,0 +1,164 @@
+package chess;
+
+import java.util.Map;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, e.g. the starting position is
+ * {@code rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1}
+ * <p>
+ * Every field but the fullmove number is used; that one is accepted but ignored, and
+ * written as 1.
+ */
+public final class Fen {
+
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // One character per castling right bit, in bit order
+    private static final String CASTLING_CHARS = "KQkq";
+
+    private static final Map<Character, ChessPiece.PieceType> CHAR_TO_TYPE = Map.of(
+            'p', ChessPiece.PieceType.PAWN,
+            'n', ChessPiece.PieceType.KNIGHT,
+            'b', ChessPiece.PieceType.BISHOP,
+            'r', ChessPiece.PieceType.ROOK,
+            'q', ChessPiece.PieceType.QUEEN,
+            'k', ChessPiece.PieceType.KING);
+
+    private Fen() {
+    }
+
+    /**
+     * Builds a game from a FEN string
+     *
+     * @param fen the position to load
+     * @return a game with that board and side to move
+     * @throws IllegalArgumentException if the string isn't a valid position
+     */
+    public static ChessGame parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("Expected 8 rows in FEN: " + fen);
+        }
+
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < 8; i++) {
+            int row = 8 - i;
+            int col = 1;
+            for (char c : rows[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                ChessPiece.PieceType type = CHAR_TO_TYPE.get(Character.toLowerCase(c));
+                if (type == null || col > 8) {
+                    throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+                }
+                ChessGame.TeamColor team = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE
+                        : ChessGame.TeamColor.BLACK;
+                board.addPiece(new ChessPosition(row, col), new ChessPiece(team, type));
+                col++;
+            }
+            if (col != 9) {
+                throw new IllegalArgumentException("Row " + row + " doesn't have 8 squares in FEN: " + fen);
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(fields.length > 1 && fields[1].equals("b") ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE);
+        int castlingRights = fields.length > 2 ? parseCastling(fields[2], fen) : 0;
+        int enPassantColumn = 0;
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            if (fields[3].length() != 2 || fields[3].charAt(0) < 'a' || fields[3].charAt(0) > 'h') {
+                throw new IllegalArgumentException("Bad en passant square in FEN: " + fen);
+            }
+            enPassantColumn = fields[3].charAt(0) - 'a' + 1;
+        }
+        game.setState(castlingRights, enPassantColumn);
+        if (fields.length > 4) {
+            try {
+                game.setHalfmoveClock(Integer.parseInt(fields[4]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad halfmove clock in FEN: " + fen, e);
+            }
+        }
+        return game;
+    }
+
+    /**
+     * @return the FEN string for the game's position
+     */
+    public static String toFen(ChessGame game) {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(new ChessPosition(row, col));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(pieceChar(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+        fen.append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? " w " : " b ");
+
+        int rights = game.getCastlingRights();
+        for (int i = 0; i < CASTLING_CHARS.length(); i++) {
+            if ((rights & 1 << i) != 0) {
+                fen.append(CASTLING_CHARS.charAt(i));
+            }
+        }
+        if (rights == 0) {
+            fen.append('-');
+        }
+
+        int enPassantColumn = game.getEnPassantColumn();
+        if (enPassantColumn == 0) {
+            fen.append(" -");
+        } else {
+            fen.append(' ').append((char) ('a' + enPassantColumn - 1))
+                    .append(game.getTeamTurn() == ChessGame.TeamColor.WHITE ? '6' : '3');
+        }
+        return fen.append(' ').append(game.getHalfmoveClock()).append(" 1").toString();
+    }
+
+    private static int parseCastling(String field, String fen) {
+        if (field.equals("-")) {
+            return 0;
+        }
+        int rights = 0;
+        for (char c : field.toCharArray()) {
+            int bit = CASTLING_CHARS.indexOf(c);
+            if (bit < 0) {
+                throw new IllegalArgumentException("Bad castling rights in FEN: " + fen);
+            }
+            rights |= 1 << bit;
+        }
+        return rights;
+    }
+
+    private static char pieceChar(ChessPiece piece) {
+        char c = switch (piece.getPieceType()) {
+            case KING -> 'k';
+            case QUEEN -> 'q';
+            case BISHOP -> 'b';
+            case KNIGHT -> 'n';
+            case ROOK -> 'r';
+            case PAWN -> 'p';
+        };
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? Character.toUpperCase(c) : c;
+    }
+}
@@ -0,0 +1,46 @@
+package chess;
+
+/**
+ * Where a game stands after the last move: whether anyone is in check, checkmate or
+ * stalemate, and which team that is, or whether the game has been drawn
+ *
+ * @param state what kind of position this is
+ * @param team the team in check, checkmate or stalemate, or null if the state is
+ *             NORMAL or a draw
+ */
+public record GameStatus(State state, ChessGame.TeamColor team) {
+
+    public static final GameStatus NORMAL = new GameStatus(State.NORMAL, null);
+
+    public enum State {
+        NORMAL,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        THREEFOLD_REPETITION,
+        FIFTY_MOVE_RULE,
+        INSUFFICIENT_MATERIAL
+    }
+
+    /**
+     * @return True if the team is in check, including when it's checkmate
+     */
+    public boolean isCheck() {
+        return state == State.CHECK || state == State.CHECKMATE;
+    }
+
+    /**
+     * @return True if the game was drawn automatically, not counting stalemate
+     */
+    public boolean isDraw() {
+        return state == State.THREEFOLD_REPETITION || state == State.FIFTY_MOVE_RULE
+                || state == State.INSUFFICIENT_MATERIAL;
+    }
+
+    /**
+     * @return True if the position ends the game
+     */
+    public boolean isGameOver() {
+        return state == State.CHECKMATE || state == State.STALEMATE || isDraw();
+    }
+}
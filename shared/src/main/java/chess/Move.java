@@ -0,0 +1,70 @@
+package chess;
+
+/**
+ * Packs a move into an int so internal move generation, check detection and search
+ * can work on primitives instead of ChessMove objects.
+ * <p>
+ * Layout: bits 0-5 start square, 6-11 end square (squares numbered as in
+ * {@link Bitboards}), 12-14 the promotion piece's {@code PieceType.ordinal()}, or 0 for
+ * no promotion (a pawn can never promote to a king, so 0 is free).
+ */
+public final class Move {
+
+    /**
+     * Not a real move (a1 to a1), used where there is no move to report
+     */
+    public static final int NONE = 0;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private Move() {
+    }
+
+    public static int of(int from, int to) {
+        return from | to << 6;
+    }
+
+    public static int of(int from, int to, ChessPiece.PieceType promotionPiece) {
+        return promotionPiece == null ? of(from, to) : of(from, to) | promotionPiece.ordinal() << 12;
+    }
+
+    public static int of(ChessMove move) {
+        return of(Bitboards.square(move.getStartPosition()), Bitboards.square(move.getEndPosition()),
+                move.getPromotionPiece());
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @return the piece a pawn promotes to, or null if the move isn't a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = (move >>> 12) & 0x7;
+        return promotion == 0 ? null : TYPES[promotion];
+    }
+
+    /**
+     * @return the shared ChessMove for this move
+     */
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(from(move), to(move), promotion(move));
+    }
+
+    /**
+     * @return the move in coordinate notation, e.g. e2e4 or e7e8q
+     */
+    public static String toString(int move) {
+        ChessPiece.PieceType promotion = promotion(move);
+        String suffix = promotion == null ? ""
+                : promotion == ChessPiece.PieceType.KNIGHT ? "n"
+                : promotion.toString().substring(0, 1).toLowerCase();
+        return ChessPosition.getReadablePos(Bitboards.position(from(move)))
+                + ChessPosition.getReadablePos(Bitboards.position(to(move))) + suffix;
+    }
+}
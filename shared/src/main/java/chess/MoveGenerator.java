@@ -0,0 +1,436 @@
+package chess;
+
+/**
+ * Move generation on packed int moves (see {@link Move}).
+ * <p>
+ * The pseudo-legal methods don't check whether a move leaves the mover's own king in
+ * danger. The legal methods work that out once per position instead of trying each
+ * move: they find the pieces giving check and the pieces pinned to their king, then only
+ * emit moves that answer the check and keep pinned pieces on their pin line.
+ * <p>
+ * Castling and en passant depend on more than the board, so the legal methods also take the
+ * game's state word: the castling rights still held in bits 0-3 and the column a pawn can be
+ * captured en passant on in bits 4-7 (see {@link ChessGame}).
+ */
+public final class MoveGenerator {
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Finds every square a piece could move to, ignoring whether its king is left in danger
+     *
+     * @return a mask of the target squares, empty squares and enemy pieces only
+     */
+    public static long targets(ChessBoard board, ChessGame.TeamColor team, ChessPiece.PieceType type, int from) {
+        long occupied = board.getOccupied();
+        long targets = switch (type) {
+            case KING -> Bitboards.kingAttacksFrom(from);
+            case QUEEN -> Bitboards.queenAttacks(from, occupied);
+            case BISHOP -> Bitboards.bishopAttacks(from, occupied);
+            case KNIGHT -> Bitboards.knightAttacksFrom(from);
+            case ROOK -> Bitboards.rookAttacks(from, occupied);
+            case PAWN -> pawnTargets(board, team, from);
+        };
+        // Any square not holding one of our own pieces is either empty or a capture
+        return targets & ~board.getTeamPieces(team);
+    }
+
+    /**
+     * @return true if a pawn of the given team reaching the square promotes
+     */
+    public static boolean isPromotionSquare(ChessGame.TeamColor team, int square) {
+        long promotionRank = team == ChessGame.TeamColor.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1;
+        return (promotionRank & Bitboards.bit(square)) != 0;
+    }
+
+    /**
+     * Adds the pseudo-legal moves of one piece, one move per promotion piece for promotions
+     */
+    public static void addPieceMoves(ChessBoard board, ChessGame.TeamColor team, ChessPiece.PieceType type,
+                                     int from, MoveList moves) {
+        addTargets(board, team, type, from, -1L, moves);
+    }
+
+    /**
+     * Adds the pseudo-legal moves of every piece on the team, visiting only occupied squares
+     */
+    public static void addTeamMoves(ChessBoard board, ChessGame.TeamColor team, MoveList moves) {
+        long teamPieces = board.getTeamPieces(team);
+        while (teamPieces != 0) {
+            int from = Long.numberOfTrailingZeros(teamPieces);
+            teamPieces &= teamPieces - 1;
+            addPieceMoves(board, team, board.pieceTypeAt(from), from, moves);
+        }
+    }
+
+    /**
+     * Adds every legal move for the team in a single pass
+     *
+     * @param state the castling rights and en passant column of the position
+     */
+    public static void addLegalMoves(ChessBoard board, ChessGame.TeamColor team, int state, MoveList moves) {
+        int king = board.kingSquare(team);
+        if (king < 0) {
+            // Without a king nothing can be left in danger
+            addTeamMoves(board, team, moves);
+            addEnPassantMoves(board, team, king, state, -1L, moves);
+            return;
+        }
+        long checkers = board.attackersTo(king, team.opponent(), board.getOccupied());
+        addKingMoves(board, team, king, moves);
+        // En passant is tested by making it, so it doesn't need the masks below
+        addEnPassantMoves(board, team, king, state, -1L, moves);
+        if (Long.bitCount(checkers) > 1) {
+            // Only the king can get out of a double check
+            return;
+        }
+        if (checkers == 0) {
+            addCastlingMoves(board, team, king, state, moves);
+        }
+        long evasions = evasionMask(king, checkers);
+        long pinned = pinnedPieces(board, team, king);
+
+        long teamPieces = board.getTeamPieces(team) & ~Bitboards.bit(king);
+        while (teamPieces != 0) {
+            int from = Long.numberOfTrailingZeros(teamPieces);
+            teamPieces &= teamPieces - 1;
+            addTargets(board, team, board.pieceTypeAt(from), from,
+                    legalMask(king, from, evasions, pinned), moves);
+        }
+    }
+
+    /**
+     * Adds the legal moves of the piece on one square
+     *
+     * @param state the castling rights and en passant column of the position
+     */
+    public static void addLegalPieceMoves(ChessBoard board, int from, int state, MoveList moves) {
+        ChessPiece piece = board.pieceAt(from);
+        if (piece == null) {
+            return;
+        }
+        ChessGame.TeamColor team = piece.getTeamColor();
+        int king = board.kingSquare(team);
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            addEnPassantMoves(board, team, king, state, Bitboards.bit(from), moves);
+        }
+        if (king < 0) {
+            addPieceMoves(board, team, piece.getPieceType(), from, moves);
+            return;
+        }
+        long checkers = board.attackersTo(king, team.opponent(), board.getOccupied());
+        if (king == from) {
+            addKingMoves(board, team, king, moves);
+            if (checkers == 0) {
+                addCastlingMoves(board, team, king, state, moves);
+            }
+            return;
+        }
+        if (Long.bitCount(checkers) > 1) {
+            return;
+        }
+        long mask = legalMask(king, from, evasionMask(king, checkers), pinnedPieces(board, team, king));
+        addTargets(board, team, piece.getPieceType(), from, mask, moves);
+    }
+
+    /**
+     * Checks a single move for legality without generating the piece's other moves: the
+     * target must be one of the piece's pseudo-legal targets, then king safety is tested
+     * for that one move
+     *
+     * @param promotion the promotion piece, which must be given exactly when a pawn
+     *                  reaches the last rank
+     * @param state the castling rights and en passant column of the position
+     * @return true if the piece on the from square may make the move
+     */
+    public static boolean isLegal(ChessBoard board, int from, int to, ChessPiece.PieceType promotion, int state) {
+        ChessPiece piece = board.pieceAt(from);
+        if (piece == null) {
+            return false;
+        }
+        ChessGame.TeamColor team = piece.getTeamColor();
+        ChessPiece.PieceType type = piece.getPieceType();
+        boolean promotes = type == ChessPiece.PieceType.PAWN && isPromotionSquare(team, to);
+        if (promotes ? !isPromotionType(promotion) : promotion != null) {
+            return false;
+        }
+        int king = board.kingSquare(team);
+        if (type == ChessPiece.PieceType.PAWN && to == enPassantTarget(board, team, state)) {
+            return (enPassantCapturers(board, team, king, state) & Bitboards.bit(from)) != 0;
+        }
+        if (type == ChessPiece.PieceType.KING && Math.abs(to - from) == 2) {
+            return isCastlingLegal(board, team, from, to, state);
+        }
+        if ((targets(board, team, type, from) & Bitboards.bit(to)) == 0) {
+            return false;
+        }
+
+        if (king < 0) {
+            return true;
+        }
+        if (king == from) {
+            long occupiedWithoutKing = board.getOccupied() & ~Bitboards.bit(king);
+            return board.attackersTo(to, team.opponent(), occupiedWithoutKing) == 0;
+        }
+        long checkers = board.attackersTo(king, team.opponent(), board.getOccupied());
+        if (Long.bitCount(checkers) > 1) {
+            return false;
+        }
+        long mask = legalMask(king, from, evasionMask(king, checkers), pinnedPieces(board, team, king));
+        return (mask & Bitboards.bit(to)) != 0;
+    }
+
+    /**
+     * Finds out whether the team has any legal move, stopping at the first one found.
+     * Escapes are tried cheapest first: king moves, then capturing a lone checker, then
+     * blocking it, so in most positions only the king's squares are looked at. Castling is
+     * never the only legal move, since the king could stop on the square it passes over.
+     *
+     * @param state the castling rights and en passant column of the position
+     * @return true if the team has at least one legal move
+     */
+    public static boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor team, int state) {
+        int king = board.kingSquare(team);
+        if (king < 0) {
+            return hasMoveInto(board, team, board.getTeamPieces(team), king, -1L, 0L)
+                    || enPassantCapturers(board, team, king, state) != 0;
+        }
+        if (safeKingTargets(board, team, king) != 0 || enPassantCapturers(board, team, king, state) != 0) {
+            return true;
+        }
+        long occupied = board.getOccupied();
+        long checkers = board.attackersTo(king, team.opponent(), occupied);
+        if (Long.bitCount(checkers) > 1) {
+            return false;
+        }
+        long pinned = pinnedPieces(board, team, king);
+        long others = board.getTeamPieces(team) & ~Bitboards.bit(king);
+        if (checkers == 0) {
+            return hasMoveInto(board, team, others, king, -1L, pinned);
+        }
+
+        int checker = Long.numberOfTrailingZeros(checkers);
+        // A pinned piece can't take the checker, it would have to leave its pin line
+        long capturers = board.attackersTo(checker, team, occupied) & others & ~pinned;
+        if (capturers != 0) {
+            return true;
+        }
+        long blocks = Bitboards.between(king, checker);
+        return blocks != 0 && hasMoveInto(board, team, others, king, blocks, pinned);
+    }
+
+    /**
+     * Finds the team's pieces that can't leave the line between their king and an enemy slider
+     *
+     * @return a mask of the pinned pieces
+     */
+    public static long pinnedPieces(ChessBoard board, ChessGame.TeamColor team, int king) {
+        ChessGame.TeamColor enemy = team.opponent();
+        long occupied = board.getOccupied();
+        long queens = board.getPieces(enemy, ChessPiece.PieceType.QUEEN);
+        // Enemy sliders that would hit the king if nothing stood in between
+        long pinners = (Bitboards.rookAttacks(king, 0L)
+                & (queens | board.getPieces(enemy, ChessPiece.PieceType.ROOK)))
+                | (Bitboards.bishopAttacks(king, 0L)
+                & (queens | board.getPieces(enemy, ChessPiece.PieceType.BISHOP)));
+
+        long pinned = 0L;
+        while (pinners != 0) {
+            int pinner = Long.numberOfTrailingZeros(pinners);
+            pinners &= pinners - 1;
+            long blockers = Bitboards.between(king, pinner) & occupied;
+            // Exactly one piece in the way, and it's ours
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & board.getTeamPieces(team);
+            }
+        }
+        return pinned;
+    }
+
+    // The square a pawn of the team could capture en passant onto, or -1 if there isn't one
+    private static int enPassantTarget(ChessBoard board, ChessGame.TeamColor team, int state) {
+        int column = ChessGame.enPassantColumn(state);
+        if (column == 0) {
+            return -1;
+        }
+        boolean white = team == ChessGame.TeamColor.WHITE;
+        int target = Bitboards.square(white ? 6 : 3, column);
+        int passed = white ? target - 8 : target + 8;
+        // Only trust the state if the pawn that moved two squares is really there
+        if ((board.getOccupied() & Bitboards.bit(target)) != 0
+                || (board.getPieces(team.opponent(), ChessPiece.PieceType.PAWN) & Bitboards.bit(passed)) == 0) {
+            return -1;
+        }
+        return target;
+    }
+
+    // The team's pawns that can capture en passant without leaving their king in danger. Two
+    // pawns leave the capturing row at once, which no pin mask describes, so each capture is
+    // tested against the occupancy after it
+    private static long enPassantCapturers(ChessBoard board, ChessGame.TeamColor team, int king, int state) {
+        int target = enPassantTarget(board, team, state);
+        if (target < 0) {
+            return 0L;
+        }
+        long capturers = Bitboards.pawnAttacksFrom(target, team.opponent())
+                & board.getPieces(team, ChessPiece.PieceType.PAWN);
+        if (king < 0) {
+            return capturers;
+        }
+        long captured = Bitboards.bit(team == ChessGame.TeamColor.WHITE ? target - 8 : target + 8);
+        long legal = 0L;
+        while (capturers != 0) {
+            long from = capturers & -capturers;
+            capturers &= capturers - 1;
+            long occupied = (board.getOccupied() ^ from ^ captured) | Bitboards.bit(target);
+            if ((board.attackersTo(king, team.opponent(), occupied) & ~captured) == 0) {
+                legal |= from;
+            }
+        }
+        return legal;
+    }
+
+    private static void addEnPassantMoves(ChessBoard board, ChessGame.TeamColor team, int king, int state,
+                                          long pawns, MoveList moves) {
+        long capturers = enPassantCapturers(board, team, king, state) & pawns;
+        if (capturers == 0) {
+            return;
+        }
+        int target = enPassantTarget(board, team, state);
+        while (capturers != 0) {
+            int from = Long.numberOfTrailingZeros(capturers);
+            capturers &= capturers - 1;
+            moves.add(Move.of(from, target));
+        }
+    }
+
+    private static void addCastlingMoves(ChessBoard board, ChessGame.TeamColor team, int king, int state,
+                                         MoveList moves) {
+        if (isCastlingLegal(board, team, king, king + 2, state)) {
+            moves.add(Move.of(king, king + 2));
+        }
+        if (isCastlingLegal(board, team, king, king - 2, state)) {
+            moves.add(Move.of(king, king - 2));
+        }
+    }
+
+    // The right must still be held, the rook must be in its corner with nothing between it and
+    // the king, and the king may not start on, pass over or land on an attacked square
+    private static boolean isCastlingLegal(ChessBoard board, ChessGame.TeamColor team, int king, int to,
+                                           int state) {
+        boolean kingside = to > king;
+        if ((state & ChessGame.castlingRight(team, kingside)) == 0
+                || king != ChessGame.castlingKingSquare(team)) {
+            return false;
+        }
+        int corner = kingside ? king + 3 : king - 4;
+        long occupied = board.getOccupied();
+        if ((board.getPieces(team, ChessPiece.PieceType.ROOK) & Bitboards.bit(corner)) == 0
+                || (Bitboards.between(king, corner) & occupied) != 0) {
+            return false;
+        }
+        int step = kingside ? 1 : -1;
+        for (int square = king; square != to + step; square += step) {
+            if (board.attackersTo(square, team.opponent(), occupied) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPromotionType(ChessPiece.PieceType type) {
+        for (ChessPiece.PieceType promotion : ChessPiece.PROMOTION_TYPES) {
+            if (promotion == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // With no check anything goes; with one check a move must capture the checker or block it
+    private static long evasionMask(int king, long checkers) {
+        if (checkers == 0) {
+            return -1L;
+        }
+        int checker = Long.numberOfTrailingZeros(checkers);
+        return checkers | Bitboards.between(king, checker);
+    }
+
+    private static long legalMask(int king, int from, long evasions, long pinned) {
+        if ((pinned & Bitboards.bit(from)) != 0) {
+            return evasions & Bitboards.line(king, from);
+        }
+        return evasions;
+    }
+
+    // Adds a move to each of the piece's targets that's also in the mask
+    private static void addTargets(ChessBoard board, ChessGame.TeamColor team, ChessPiece.PieceType type,
+                                   int from, long mask, MoveList moves) {
+        long targets = targets(board, team, type, from) & mask;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (type == ChessPiece.PieceType.PAWN && isPromotionSquare(team, to)) {
+                for (ChessPiece.PieceType promotion : ChessPiece.PROMOTION_TYPES) {
+                    moves.add(Move.of(from, to, promotion));
+                }
+            } else {
+                moves.add(Move.of(from, to));
+            }
+        }
+    }
+
+    private static void addKingMoves(ChessBoard board, ChessGame.TeamColor team, int king, MoveList moves) {
+        long targets = safeKingTargets(board, team, king);
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(Move.of(king, to));
+        }
+    }
+
+    // The king may step anywhere the enemy doesn't attack once the king itself is out of the way
+    private static long safeKingTargets(ChessBoard board, ChessGame.TeamColor team, int king) {
+        long occupiedWithoutKing = board.getOccupied() & ~Bitboards.bit(king);
+        long targets = Bitboards.kingAttacksFrom(king) & ~board.getTeamPieces(team);
+        long safe = 0L;
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (board.attackersTo(to, team.opponent(), occupiedWithoutKing) == 0) {
+                safe |= Bitboards.bit(to);
+            }
+        }
+        return safe;
+    }
+
+    // True if any of the pieces has a target in the mask that its pin allows
+    private static boolean hasMoveInto(ChessBoard board, ChessGame.TeamColor team, long pieces, int king,
+                                       long mask, long pinned) {
+        long teamPieces = pieces;
+        while (teamPieces != 0) {
+            int from = Long.numberOfTrailingZeros(teamPieces);
+            teamPieces &= teamPieces - 1;
+            if ((targets(board, team, board.pieceTypeAt(from), from) & legalMask(king, from, mask, pinned)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long pawnTargets(ChessBoard board, ChessGame.TeamColor team, int from) {
+        long pawn = Bitboards.bit(from);
+        long empty = ~board.getOccupied();
+        long pushes;
+        if (team == ChessGame.TeamColor.WHITE) {
+            long single = (pawn << 8) & empty;
+            // The second step is only open if the first one was and we haven't moved yet
+            pushes = single | (((single & (Bitboards.RANK_2 << 8)) << 8) & empty);
+        } else {
+            long single = (pawn >>> 8) & empty;
+            pushes = single | (((single & (Bitboards.RANK_7 >>> 8)) >>> 8) & empty);
+        }
+        return pushes | (Bitboards.pawnAttacksFrom(from, team) & board.getTeamPieces(team.opponent()));
+    }
+}
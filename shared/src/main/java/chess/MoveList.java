@@ -0,0 +1,96 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A reusable, growable list of packed moves (see {@link Move}) backed by an int array.
+ * Clearing and refilling the same list doesn't allocate.
+ */
+public class MoveList {
+
+    // No legal chess position has more than 218 moves
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds every move in a collection of ChessMoves
+     */
+    public void addAll(Collection<ChessMove> chessMoves) {
+        for (ChessMove move : chessMoves) {
+            add(Move.of(move));
+        }
+    }
+
+    /**
+     * Adds the shared ChessMove for each move in this list to a collection
+     */
+    public void addTo(Collection<ChessMove> chessMoves) {
+        for (int i = 0; i < size; i++) {
+            chessMoves.add(Move.toChessMove(moves[i]));
+        }
+    }
+
+    public List<ChessMove> toChessMoves() {
+        List<ChessMove> chessMoves = new ArrayList<>(size);
+        addTo(chessMoves);
+        return chessMoves;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            builder.append(i == 0 ? "" : ", ").append(Move.toString(moves[i]));
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,148 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Performance test for move generation: counts every leaf of the legal move tree
+ * to a fixed depth. The counts for well known positions are published, so this is
+ * both a correctness check and a throughput benchmark for the move generator.
+ * <p>
+ * {@link #perft} walks the tree with the engine's packed moves. {@link #perftValidMoves}
+ * finds the moves through {@link ChessGame#validMoves} instead, the API the server plays
+ * through, so that path is checked against the same counts.
+ * <p>
+ * Usage: {@code Perft <depth> [divide|api] [fen]}, where {@code api} counts with validMoves
+ */
+public final class Perft {
+
+    private Perft() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: Perft <depth> [divide|api] [fen]");
+            System.exit(1);
+        }
+        int depth = Integer.parseInt(args[0]);
+        boolean divide = args.length > 1 && args[1].equals("divide");
+        boolean api = args.length > 1 && args[1].equals("api");
+        int fenStart = divide || api ? 2 : 1;
+        String fen = args.length > fenStart
+                ? String.join(" ", Arrays.copyOfRange(args, fenStart, args.length))
+                : Fen.STARTING_POSITION;
+        ChessGame game = Fen.parse(fen);
+
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+                System.out.println(Move.toString(Move.of(entry.getKey())) + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else if (api) {
+            nodes = perftValidMoves(game, depth);
+        } else {
+            nodes = perft(game, depth);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println();
+        System.out.println("Depth:    " + depth);
+        System.out.println("Nodes:    " + nodes);
+        System.out.printf("Time:     %.3f s%n", elapsed / 1e9);
+        System.out.printf("Nodes/s:  %.0f%n", nodes / (elapsed / 1e9));
+    }
+
+    /**
+     * Counts the leaf nodes of the legal move tree below the game's current position
+     *
+     * @param game the position to start from, it is left unchanged
+     * @param depth how many plies to search
+     * @return the number of positions reachable in exactly depth moves
+     */
+    public static long perft(ChessGame game, int depth) {
+        return perft(game, depth, moveLists(depth));
+    }
+
+    /**
+     * Perft with every position's moves found through {@link ChessGame#validMoves}, one piece
+     * at a time, the way the server finds them. Slower than {@link #perft}, but it must give
+     * the same counts
+     *
+     * @param game the position to start from, it is left unchanged
+     */
+    public static long perftValidMoves(ChessGame game, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        Collection<ChessMove> moves = new ArrayList<>();
+        long pieces = game.getBoard().getTeamPieces(game.getTeamTurn());
+        while (pieces != 0) {
+            moves.addAll(game.validMoves(Bitboards.position(Long.numberOfTrailingZeros(pieces))));
+            pieces &= pieces - 1;
+        }
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (ChessMove move : moves) {
+            long undo = game.makeMove(Move.of(move));
+            nodes += perftValidMoves(game, depth - 1);
+            game.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    /**
+     * Perft split by root move, for tracking down which branch disagrees with a reference count
+     *
+     * @return the leaf count below each legal root move
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        MoveList[] lists = moveLists(depth);
+        MoveList moves = new MoveList();
+        game.addLegalMoves(game.getTeamTurn(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            long undo = game.makeMove(move);
+            counts.put(Move.toChessMove(move), depth <= 1 ? 1 : perft(game, depth - 1, lists));
+            game.unmakeMove(undo);
+        }
+        return counts;
+    }
+
+    // lists[depth] holds the moves at that depth, so the walk doesn't allocate
+    private static long perft(ChessGame game, int depth, MoveList[] lists) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = lists[depth];
+        moves.clear();
+        game.addLegalMoves(game.getTeamTurn(), moves);
+        // At the last ply every legal move is a leaf, there's no need to make it
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            long undo = game.makeMove(moves.get(i));
+            nodes += perft(game, depth - 1, lists);
+            game.unmakeMove(undo);
+        }
+        return nodes;
+    }
+
+    private static MoveList[] moveLists(int depth) {
+        MoveList[] lists = new MoveList[Math.max(depth, 0) + 1];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return lists;
+    }
+}
@@ -0,0 +1,111 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The position keys a {@link ChessGame} has been through since its last irreversible move,
+ * oldest first. The keys live in a ring allocated once, so recording a move never allocates;
+ * once it's full the oldest key makes room for the newest.
+ * <p>
+ * Stored as JSON as a plain array of just the keys it holds, oldest first.
+ */
+@JsonAdapter(PositionHistory.JsonFormat.class)
+final class PositionHistory {
+
+    private final long[] keys;
+    // Index in keys of the oldest key
+    private int start;
+    private int size;
+
+    /**
+     * @param capacity how many keys are kept before the oldest are dropped
+     */
+    PositionHistory(int capacity) {
+        keys = new long[capacity];
+    }
+
+    PositionHistory(PositionHistory that) {
+        keys = that.keys.clone();
+        start = that.start;
+        size = that.size;
+    }
+
+    /**
+     * Forgets every key, leaving only the given one
+     */
+    void reset(long key) {
+        start = 0;
+        size = 1;
+        keys[0] = key;
+    }
+
+    void add(long key) {
+        if(size == keys.length){
+            keys[start] = key;
+            start = (start + 1) % keys.length;
+        } else {
+            keys[(start + size) % keys.length] = key;
+            size++;
+        }
+    }
+
+    /**
+     * @param index counting from the oldest key
+     */
+    long get(int index) {
+        return keys[(start + index) % keys.length];
+    }
+
+    long last() {
+        return get(size - 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the keys, oldest first
+     */
+    long[] toArray() {
+        long[] array = new long[size];
+        for(int i = 0; i < size; i++){
+            array[i] = get(i);
+        }
+        return array;
+    }
+
+    static final class JsonFormat extends TypeAdapter<PositionHistory> {
+
+        @Override
+        public void write(JsonWriter out, PositionHistory history) throws IOException {
+            out.beginArray();
+            for(int i = 0; i < history.size; i++){
+                out.value(history.get(i));
+            }
+            out.endArray();
+        }
+
+        @Override
+        public PositionHistory read(JsonReader in) throws IOException {
+            List<Long> stored = new ArrayList<>();
+            in.beginArray();
+            while(in.hasNext()){
+                stored.add(in.nextLong());
+            }
+            in.endArray();
+            PositionHistory history = new PositionHistory(ChessGame.MAX_HISTORY);
+            for(long key : stored){
+                history.add(key);
+            }
+            return history;
+        }
+    }
+}
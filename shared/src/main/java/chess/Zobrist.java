@@ -0,0 +1,82 @@
+package chess;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the key for every
+ * (piece, square) pair on the board, plus the side-to-move key when black is to move,
+ * a key for each castling right still held and one for the en passant file if there is one.
+ * Moving a piece only XORs two or three keys in or out, so the key can be kept up to
+ * date as the board changes instead of being recomputed.
+ * <p>
+ * The keys come from a fixed seed so they are the same on every run; stored keys stay
+ * valid across server restarts.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x240C4E55L;
+
+    // PIECE_SQUARE[pieceIndex * 64 + square]
+    private static final long[] PIECE_SQUARE = new long[12 * 64];
+    public static final long BLACK_TO_MOVE;
+    // One key per castling right bit, see ChessGame
+    private static final long[] CASTLING_RIGHT = new long[4];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        long state = SEED;
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            PIECE_SQUARE[i] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        BLACK_TO_MOVE = mix(state);
+        // Keys added later are drawn after the existing ones so those don't change
+        for (int i = 0; i < CASTLING_RIGHT.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            CASTLING_RIGHT[i] = mix(state);
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            EN_PASSANT_FILE[i] = mix(state);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param pieceIndex which piece mask the piece belongs to (see ChessBoard)
+     * @param square the square (0-63) it stands on
+     * @return the key to XOR in when the piece is placed and out when it's removed
+     */
+    public static long piece(int pieceIndex, int square) {
+        return PIECE_SQUARE[pieceIndex * 64 + square];
+    }
+
+    /**
+     * @param rights a mask of castling rights, one bit per right
+     * @return the XOR of the keys for every right in the mask
+     */
+    public static long castling(int rights) {
+        long key = 0L;
+        for (int i = 0; i < CASTLING_RIGHT.length; i++) {
+            if ((rights & (1 << i)) != 0) {
+                key ^= CASTLING_RIGHT[i];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @param column the column (1-8) a pawn can be captured en passant on
+     */
+    public static long enPassant(int column) {
+        return EN_PASSANT_FILE[column - 1];
+    }
+
+    // SplitMix64 finalizer, spelled out here so the keys never depend on a library's generator
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,99 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.MoveList;
+import chess.PieceSquareTables;
+
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Batch evaluation benchmark: scores the same boards one at a time with the reference
+ * evaluation, as a batch one board at a time, and as a batch with the Vector API, and
+ * prints the time per board for each. The boards come from random games, so they cover
+ * openings through endings.
+ * <p>
+ * Usage: {@code BatchBench [boards] [rounds]}. The vector timing needs the {@code vector}
+ * build profile and the JVM to run with {@code --add-modules jdk.incubator.vector}.
+ */
+public final class BatchBench {
+
+    private BatchBench() {
+    }
+
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        ChessGame[] games = randomGames(boards, new Random(1));
+        BoardBatch batch = new BoardBatch(boards);
+        for (ChessGame game : games) {
+            batch.add(game);
+        }
+        int[] scores = new int[boards];
+
+        System.out.println("Vector API: " + (BatchEvaluation.isVectorized() ? "on" : "off"));
+        // Each runs once untimed so the JIT has compiled it before it's measured
+        for (int pass = 0; pass < 2; pass++) {
+            boolean print = pass == 1;
+            time("reference, one board at a time", boards, rounds, print, () -> {
+                int sum = 0;
+                for (ChessGame game : games) {
+                    int score = PieceSquareTables.evaluate(game.getBoard());
+                    sum += game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+                }
+                return sum;
+            });
+            time("batch, scalar", boards, rounds, print, () -> {
+                BatchEvaluation.evaluateScalar(batch, scores, 0);
+                return sum(scores);
+            });
+            if (BatchEvaluation.isVectorized()) {
+                time("batch, vectorized", boards, rounds, print, () -> {
+                    BatchEvaluation.evaluate(batch, scores);
+                    return sum(scores);
+                });
+            }
+        }
+    }
+
+    private static void time(String name, int boards, int rounds, boolean print, IntSupplier run) {
+        long checksum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            checksum += run.getAsInt();
+        }
+        double nanos = (System.nanoTime() - start) / ((double) boards * rounds);
+        if (print) {
+            System.out.printf("%-32s %7.2f ns/board  %9.0f boards/s  checksum %d%n",
+                    name, nanos, 1e9 / nanos, checksum);
+        }
+    }
+
+    private static int sum(int[] scores) {
+        int sum = 0;
+        for (int score : scores) {
+            sum += score;
+        }
+        return sum;
+    }
+
+    // Positions after 0-79 random plies, restarting whenever a game ends early
+    static ChessGame[] randomGames(int count, Random random) {
+        ChessGame[] games = new ChessGame[count];
+        MoveList moves = new MoveList();
+        for (int i = 0; i < count; i++) {
+            ChessGame game = new ChessGame();
+            int plies = random.nextInt(80);
+            for (int ply = 0; ply < plies; ply++) {
+                moves.clear();
+                game.addLegalMoves(game.getTeamTurn(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+            games[i] = game;
+        }
+        return games;
+    }
+}
@@ -0,0 +1,100 @@
+package chess.engine;
+
+import chess.PieceSquareTables;
+
+/**
+ * Static evaluation of a whole {@link BoardBatch} at once, for offline jobs that score far
+ * more positions than they search. Every score is the same as {@link Evaluation#evaluate}
+ * gives for the board on its own, from the point of view of the team to move.
+ * <p>
+ * When built with the {@code vector} Maven profile, run with
+ * {@code --add-modules jdk.incubator.vector}, and the CPU has vectors of at least 8 ints,
+ * boards are scored a vector's width at a time with the Vector API by VectorEvaluation.
+ * Otherwise, or with {@value #SCALAR_PROPERTY} set to true, each board is scored one piece at
+ * a time, the way {@link PieceSquareTables#evaluate} does.
+ */
+public final class BatchEvaluation {
+
+    // System property that turns the vector evaluation off even where it's available
+    public static final String SCALAR_PROPERTY = "chess.engine.scalarBatch";
+
+    // The vector evaluation's class, which the core build leaves out
+    private static final String VECTOR_CLASS = "chess.engine.VectorEvaluation";
+    // Null where boards are scored one at a time
+    private static final Kernel VECTOR = loadVector();
+
+    /**
+     * What the vector evaluation provides; it's looked up by name, so nothing here depends
+     * on the incubating module
+     */
+    interface Kernel {
+
+        boolean isWorthwhile();
+
+        void evaluate(BoardBatch batch, int[] scores);
+    }
+
+    private BatchEvaluation() {
+    }
+
+    /**
+     * @return True if batches are scored with the Vector API
+     */
+    public static boolean isVectorized() {
+        return VECTOR != null;
+    }
+
+    /**
+     * Scores every board in the batch
+     *
+     * @param scores where each board's score goes, at its batch index; at least the batch's size long
+     */
+    public static void evaluate(BoardBatch batch, int[] scores) {
+        if (scores.length < batch.size()) {
+            throw new IllegalArgumentException("Need room for " + batch.size() + " scores, got " + scores.length);
+        }
+        if (VECTOR != null) {
+            VECTOR.evaluate(batch, scores);
+        } else {
+            evaluateScalar(batch, scores, 0);
+        }
+    }
+
+    // Only touches the vector evaluation's class once the module is known to be there, or
+    // loading it would fail
+    private static Kernel loadVector() {
+        if (Boolean.getBoolean(SCALAR_PROPERTY) || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            Kernel kernel = (Kernel) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+            return kernel.isWorthwhile() ? kernel : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't load " + VECTOR_CLASS, e);
+        }
+    }
+
+    /**
+     * Scores the boards from the given index to the end of the batch one at a time
+     */
+    static void evaluateScalar(BoardBatch batch, int[] scores, int from) {
+        for (int board = from; board < batch.size(); board++) {
+            int middlegame = 0;
+            int endgame = 0;
+            int phase = 0;
+            for (int index = 0; index < 12; index++) {
+                long pieces = batch.pieces(board, index);
+                phase += PieceSquareTables.phase(index) * Long.bitCount(pieces);
+                while (pieces != 0) {
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    middlegame += PieceSquareTables.middlegame(index, square);
+                    endgame += PieceSquareTables.endgame(index, square);
+                    pieces &= pieces - 1;
+                }
+            }
+            scores[board] = batch.sign[board] * PieceSquareTables.taper(middlegame, endgame, phase);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Scores a stream of positions on a {@link ForkJoinPool}, either with the static
+ * evaluation or with a search to a fixed depth. Results come out in input order, while only
+ * a window of a few positions per thread is ever held in memory, so inputs of any size can
+ * be streamed through.
+ * <p>
+ * Each call makes a {@link Search} with its own small transposition table for every position
+ * it has running at once, at most one per thread. It reuses them for later positions and
+ * lets them go when it returns. The table is
+ * cleared before every position, so a position's result doesn't depend on what ran before
+ * it or on which thread it ran.
+ * <p>
+ * Usage: {@code BatchEvaluator [depth] [threads] [table megabytes]}, reading one FEN per
+ * line from standard input and writing {@code fen <tab> score <tab> best move <tab> nodes}
+ * lines to standard output. A depth of 0 uses the static evaluation. Blank lines are
+ * skipped, and a position that can't be read is written with an error instead of a score.
+ */
+public final class BatchEvaluator {
+
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_TABLE_MEGABYTES = 1;
+    // Positions in flight per thread, enough to keep threads busy behind a slow position
+    private static final int WINDOW_PER_THREAD = 8;
+
+    private final ForkJoinPool pool;
+    private final int depth;
+    private final int tableMegabytes;
+
+    /**
+     * @param pool the threads to score on
+     * @param depth the depth to search each position to, or 0 for the static evaluation
+     * @param tableMegabytes the size of each thread's transposition table, or 0 for none
+     */
+    public BatchEvaluator(ForkJoinPool pool, int depth, int tableMegabytes) {
+        if (depth < 0 || depth > SearchLimits.MAX_DEPTH) {
+            throw new IllegalArgumentException("Batch depth must be between 0 and " + SearchLimits.MAX_DEPTH + ": " + depth);
+        }
+        this.pool = pool;
+        this.depth = depth;
+        this.tableMegabytes = tableMegabytes;
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int megabytes = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TABLE_MEGABYTES;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        BatchEvaluator evaluator = new BatchEvaluator(pool, depth, megabytes);
+        long start = System.nanoTime();
+        long[] count = new long[1];
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(System.out, false, StandardCharsets.UTF_8);
+        evaluator.evaluate(in.lines().filter(line -> !line.isBlank()), result -> {
+            out.println(format(result));
+            count[0]++;
+        });
+        out.flush();
+        pool.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d positions in %.3f s, %.0f positions/s%n", count[0], seconds, count[0] / seconds);
+    }
+
+    /**
+     * Scores every position of the stream, handing each result to the consumer in input
+     * order as soon as it and all those before it are done. The consumer is called on the
+     * calling thread, and the stream is read on it.
+     */
+    public void evaluate(Stream<String> fens, Consumer<BatchResult> results) {
+        int window = pool.getParallelism() * WINDOW_PER_THREAD;
+        ArrayDeque<ForkJoinTask<BatchResult>> running = new ArrayDeque<>(window);
+        // Searches not in use right now, owned by this call
+        Queue<Worker> idle = new ConcurrentLinkedQueue<>();
+        Iterator<String> positions = fens.iterator();
+        long index = 0;
+        while (positions.hasNext()) {
+            String fen = positions.next();
+            long position = index++;
+            running.add(pool.submit(() -> evaluate(position, fen, idle)));
+            if (running.size() == window) {
+                results.accept(running.remove().join());
+            }
+        }
+        while (!running.isEmpty()) {
+            results.accept(running.remove().join());
+        }
+    }
+
+    /**
+     * Scores one position on the calling thread, with a search and table of its own
+     *
+     * @param index the position's place in its batch
+     */
+    public BatchResult evaluate(long index, String fen) {
+        return evaluate(index, fen, new ArrayDeque<>(1));
+    }
+
+    // Borrows a worker from the idle ones, or makes one if they're all busy
+    private BatchResult evaluate(long index, String fen, Queue<Worker> idle) {
+        ChessGame game;
+        try {
+            game = Fen.parse(fen);
+        } catch (IllegalArgumentException e) {
+            return new BatchResult(index, fen, 0, null, 0, e.getMessage());
+        }
+        if (depth == 0) {
+            return new BatchResult(index, fen, Evaluation.evaluate(game), null, 0, null);
+        }
+        Worker worker = idle.poll();
+        if (worker == null) {
+            TranspositionTable table = tableMegabytes > 0 ? new TranspositionTable(tableMegabytes) : null;
+            worker = new Worker(new Search(game, table), table);
+        }
+        try {
+            if (worker.table() != null) {
+                worker.table().clear();
+            }
+            worker.search().setPosition(game);
+            SearchResult result = worker.search().search(SearchLimits.depth(depth));
+            return new BatchResult(index, fen, result.score(), result.bestMove(), result.nodes(), null);
+        } finally {
+            idle.add(worker);
+        }
+    }
+
+    private record Worker(Search search, TranspositionTable table) {
+    }
+
+    private static String format(BatchResult result) {
+        if (!result.ok()) {
+            return result.fen() + "\terror\t" + result.error();
+        }
+        String move = result.bestMove() == null ? "-" : Move.toString(Move.of(result.bestMove()));
+        return result.fen() + '\t' + result.score() + '\t' + move + '\t' + result.nodes();
+    }
+}
@@ -0,0 +1,24 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+/**
+ * The score {@link BatchEvaluator} gave one position of a batch
+ *
+ * @param index the position's place in the input, counting from 0
+ * @param fen the position as it was given
+ * @param score centipawns for the team to move, or 0 if the position couldn't be read
+ * @param bestMove the searched best move, or null for a static evaluation, a position
+ *                 without legal moves, or one that couldn't be read
+ * @param nodes how many positions the search visited
+ * @param error why the position couldn't be read, or null if it was scored
+ */
+public record BatchResult(long index, String fen, int score, ChessMove bestMove, long nodes, String error) {
+
+    /**
+     * @return True if the position was scored
+     */
+    public boolean ok() {
+        return error == null;
+    }
+}
@@ -0,0 +1,61 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+
+/**
+ * Search benchmark: searches a fixed set of positions and prints each finished iteration,
+ * so both the node rate and how quickly the search gets deep can be tracked while tuning.
+ * <p>
+ * Usage: {@code Bench [millis per position] [table megabytes] [depth]}; a table size of 0
+ * searches without a transposition table. Given a depth, each position is searched to that
+ * depth (0 millis for no time limit), so the node totals compare move ordering changes.
+ */
+public final class Bench {
+
+    static final String[] POSITIONS = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R1BQ1RK1 w - - 0 8",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+
+    private Bench() {
+    }
+
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 2000;
+        int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : TranspositionTable.DEFAULT_MEGABYTES;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : SearchLimits.MAX_DEPTH;
+        SearchLimits limits = new SearchLimits(depth, millis, 0);
+        long totalNodes = 0;
+        long totalNanos = 0;
+        int totalDepth = 0;
+        for (String fen : POSITIONS) {
+            System.out.println(fen);
+            ChessGame game = Fen.parse(fen);
+            // Each position starts from an empty table, so the results don't depend on the order
+            TranspositionTable table = megabytes > 0 ? new TranspositionTable(megabytes) : null;
+            SearchResult result = new Search(game, table).search(limits, Bench::print);
+            if (table != null) {
+                System.out.printf("table hit rate %.1f%%%n", table.hitRate() * 100);
+            }
+            totalNodes += result.nodes();
+            totalNanos += result.nanos();
+            totalDepth += result.depth();
+            System.out.println();
+        }
+
+        System.out.println("Nodes:      " + totalNodes);
+        System.out.printf("Time:       %.3f s%n", totalNanos / 1e9);
+        System.out.printf("Nodes/s:    %.0f%n", totalNodes / (totalNanos / 1e9));
+        System.out.printf("Mean depth: %.1f%n", totalDepth / (double) POSITIONS.length);
+    }
+
+    private static void print(SearchResult result) {
+        System.out.printf("depth %2d  score %6d  nodes %10d  time %8.3f s  nps %9d  move %s%n",
+                result.depth(), result.score(), result.nodes(), result.nanos() / 1e9,
+                result.nodesPerSecond(), Move.toString(Move.of(result.bestMove())));
+    }
+}
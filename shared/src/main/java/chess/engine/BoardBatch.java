@@ -0,0 +1,83 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Many positions laid out for {@link BatchEvaluation}: one array per piece mask instead of
+ * one object per board, so the same piece of consecutive boards sits side by side in memory
+ * and can be loaded into vector lanes together. Each 64-bit piece mask is kept as its low and
+ * high 32-bit halves, the squares of rows 1-4 and of rows 5-8.
+ * <p>
+ * A batch is filled with {@link #add} and reused after {@link #clear}.
+ */
+public final class BoardBatch {
+
+    private final int capacity;
+    // [pieceIndex][board], pieceIndex as on ChessBoard
+    final int[][] low;
+    final int[][] high;
+    // 1 where white is to move, -1 where black is
+    final int[] sign;
+    private int size;
+
+    public BoardBatch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("A batch needs room for at least one board: " + capacity);
+        }
+        this.capacity = capacity;
+        low = new int[12][capacity];
+        high = new int[12][capacity];
+        sign = new int[capacity];
+    }
+
+    /**
+     * Copies a position into the next free slot
+     *
+     * @return the slot's index, where its score will be
+     * @throws IllegalStateException if the batch is full
+     */
+    public int add(ChessGame game) {
+        if (size == capacity) {
+            throw new IllegalStateException("Batch is full: " + capacity + " boards");
+        }
+        ChessBoard board = game.getBoard();
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                int index = ChessBoard.pieceIndex(team, type);
+                long pieces = board.getPieces(team, type);
+                low[index][size] = (int) pieces;
+                high[index][size] = (int) (pieces >>> 32);
+            }
+        }
+        sign[size] = game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 1 : -1;
+        return size++;
+    }
+
+    /**
+     * @return the piece mask of one board, as ChessBoard would give it
+     */
+    public long pieces(int board, int pieceIndex) {
+        return (long) high[pieceIndex][board] << 32 | low[pieceIndex][board] & 0xFFFFFFFFL;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Empties the batch, keeping its arrays
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,12 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+/**
+ * A move an opening book suggests for a position
+ *
+ * @param move the move, always legal in the position it was looked up for
+ * @param weight how often the book plays it relative to the position's other moves
+ */
+public record BookMove(ChessMove move, int weight) {
+}
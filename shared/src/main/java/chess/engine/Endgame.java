@@ -0,0 +1,109 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * The endings {@link Tablebase} covers: a king and one or two pieces against a bare king.
+ * Positions are always indexed as if the side with the pieces were white, and the board
+ * is mirrored so the white king stands on files a-d, and without pawns on rows 1-4 as
+ * well, since mirrored positions have the same outcome. An index is then
+ * <pre>
+ *   ((blackToMove * kingSquares + whiteKing) * 64 + blackKing) * 64 + first [* 64 + second]
+ * </pre>
+ * where whiteKing counts only the squares left after mirroring.
+ */
+public enum Endgame {
+    KQK(ChessPiece.PieceType.QUEEN),
+    KRK(ChessPiece.PieceType.ROOK),
+    KPK(ChessPiece.PieceType.PAWN),
+    KBNK(ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT);
+
+    private final ChessPiece.PieceType[] pieces;
+    private final boolean hasPawn;
+    private final int kingSquares;
+
+    Endgame(ChessPiece.PieceType... pieces) {
+        this.pieces = pieces;
+        boolean pawn = false;
+        for (ChessPiece.PieceType piece : pieces) {
+            pawn |= piece == ChessPiece.PieceType.PAWN;
+        }
+        hasPawn = pawn;
+        // Pawns only move one way, so boards with them can only be mirrored left to right
+        kingSquares = pawn ? 32 : 16;
+    }
+
+    /**
+     * @return the pieces the strong side has besides its king
+     */
+    public ChessPiece.PieceType piece(int i) {
+        return pieces[i];
+    }
+
+    public int pieceCount() {
+        return pieces.length;
+    }
+
+    /**
+     * @return how many entries the ending's table has
+     */
+    public int size() {
+        int size = 2 * kingSquares * 64 * 64;
+        return pieces.length == 2 ? size * 64 : size;
+    }
+
+    /**
+     * @return True if the team has exactly this ending's pieces and the other team only a king
+     */
+    public boolean matches(ChessBoard board, ChessGame.TeamColor strong) {
+        if (Long.bitCount(board.getTeamPieces(strong)) != pieces.length + 1
+                || Long.bitCount(board.getTeamPieces(strong.opponent())) != 1) {
+            return false;
+        }
+        for (ChessPiece.PieceType piece : pieces) {
+            if (board.countPieces(strong, piece) != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds a position's entry. Squares are numbered (row-1)*8 + (col-1) as on ChessBoard.
+     *
+     * @param blackToMove 1 if the bare king is to move, else 0
+     * @param second the second piece's square, ignored if the ending has one piece
+     */
+    public int index(int blackToMove, int whiteKing, int blackKing, int first, int second) {
+        int flip = (whiteKing & 7) > 3 ? 7 : 0;
+        if (!hasPawn && whiteKing >>> 3 > 3) {
+            flip |= 56;
+        }
+        whiteKing ^= flip;
+        int index = blackToMove * kingSquares + (whiteKing >>> 3) * 4 + (whiteKing & 7);
+        index = (index * 64 + (blackKing ^ flip)) * 64 + (first ^ flip);
+        return pieces.length == 2 ? index * 64 + (second ^ flip) : index;
+    }
+
+    /**
+     * The inverse of index: fills squares with blackToMove, whiteKing, blackKing, first and
+     * second (0 if there's no second piece)
+     */
+    void decode(int index, int[] squares) {
+        if (pieces.length == 2) {
+            squares[4] = index & 63;
+            index >>>= 6;
+        } else {
+            squares[4] = 0;
+        }
+        squares[3] = index & 63;
+        index >>>= 6;
+        squares[2] = index & 63;
+        index >>>= 6;
+        int king = index % kingSquares;
+        squares[1] = (king / 4) * 8 + king % 4;
+        squares[0] = index / kingSquares;
+    }
+}
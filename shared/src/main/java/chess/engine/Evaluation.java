@@ -0,0 +1,23 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+/**
+ * Static evaluation for search: the board's own material and piece-square score, which it
+ * keeps up to date move by move.
+ */
+public final class Evaluation {
+
+    private Evaluation() {
+    }
+
+    /**
+     * Scores the position from the point of view of the team to move
+     *
+     * @return positive if the team to move is ahead, in centipawns
+     */
+    public static int evaluate(ChessGame game) {
+        int score = game.getBoard().evaluate();
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+}
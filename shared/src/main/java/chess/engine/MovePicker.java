@@ -0,0 +1,155 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+/**
+ * Hands out one position's legal moves best first, which is what makes alpha-beta cut off
+ * early. The transposition table's move comes first and is only checked for legality, so
+ * when it cuts off, the position's moves are never generated. Then come captures and
+ * promotions, the most valuable victim first and the least valuable attacker first among
+ * equal victims; then the killer moves, quiet moves that cut off at this ply elsewhere in
+ * the tree; then the other quiet moves by their history score.
+ * <p>
+ * Moves are scored once when generated, but not sorted: each call picks the best one left,
+ * since a cutoff usually comes long before the list runs out.
+ */
+final class MovePicker {
+
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE = 1;
+    private static final int PICK = 2;
+
+    private static final int CAPTURE_SCORE = 1 << 30;
+    private static final int KILLER_SCORE = 1 << 29;
+    // Indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] RANKS = {6, 5, 3, 2, 4, 1};
+
+    private final MoveList moves = new MoveList();
+    private int[] scores = new int[256];
+    private ChessGame game;
+    private int hashMove;
+    private int killer1;
+    private int killer2;
+    private int[] history;
+    private boolean capturesOnly;
+    private int stage;
+    // The moves still to hand out are the ones from next up to count
+    private int next;
+    private int count;
+
+    /**
+     * Starts handing out every legal move of the team to move
+     *
+     * @param hashMove the table's best move, or {@link Move#NONE}; it's checked before use
+     * @param history quiet move scores for the team to move, indexed by from * 64 + to
+     */
+    void start(ChessGame game, int hashMove, int killer1, int killer2, int[] history) {
+        this.game = game;
+        this.hashMove = hashMove;
+        this.killer1 = killer1;
+        this.killer2 = killer2;
+        this.history = history;
+        capturesOnly = false;
+        stage = HASH_MOVE;
+    }
+
+    /**
+     * Starts handing out only the captures and promotions of the team to move
+     */
+    void startCaptures(ChessGame game) {
+        this.game = game;
+        hashMove = Move.NONE;
+        capturesOnly = true;
+        stage = GENERATE;
+    }
+
+    /**
+     * @return the best move not handed out yet, or {@link Move#NONE} once there are none
+     */
+    int next() {
+        if (stage == HASH_MOVE) {
+            stage = GENERATE;
+            if (hashMove != Move.NONE && game.isLegal(hashMove)) {
+                return hashMove;
+            }
+            hashMove = Move.NONE;
+        }
+        if (stage == GENERATE) {
+            generate();
+            stage = PICK;
+        }
+        if (next == count) {
+            return Move.NONE;
+        }
+
+        int best = next;
+        for (int i = next + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves.get(best);
+        int score = scores[best];
+        moves.set(best, moves.get(next));
+        scores[best] = scores[next];
+        moves.set(next, move);
+        scores[next] = score;
+        next++;
+        return move;
+    }
+
+    /**
+     * @return True if the move takes a piece or promotes, judged before it's made
+     */
+    static boolean isTactical(ChessBoard board, int move) {
+        return isCapture(board, move) || Move.promotion(move) != null;
+    }
+
+    private void generate() {
+        moves.clear();
+        next = 0;
+        game.addLegalMoves(game.getTeamTurn(), moves);
+        if (scores.length < moves.size()) {
+            scores = new int[moves.size()];
+        }
+
+        ChessBoard board = game.getBoard();
+        count = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            boolean tactical = isTactical(board, move);
+            // The hash move was already handed out
+            if (move == hashMove || capturesOnly && !tactical) {
+                continue;
+            }
+            moves.set(count, move);
+            scores[count++] = tactical ? CAPTURE_SCORE + tacticalScore(board, move)
+                    : move == killer1 ? KILLER_SCORE + 1
+                    : move == killer2 ? KILLER_SCORE
+                    : history[Move.from(move) * 64 + Move.to(move)];
+        }
+    }
+
+    // Most valuable victim first, then least valuable attacker; a promotion counts as taking its piece
+    private static int tacticalScore(ChessBoard board, int move) {
+        ChessPiece.PieceType victim = board.pieceTypeAt(Move.to(move));
+        ChessPiece.PieceType promotion = Move.promotion(move);
+        int gain = (victim == null ? isCapture(board, move) ? 1 : 0 : RANKS[victim.ordinal()])
+                + (promotion == null ? 0 : RANKS[promotion.ordinal()]);
+        return gain * 8 - RANKS[board.pieceTypeAt(Move.from(move)).ordinal()];
+    }
+
+    private static boolean isCapture(ChessBoard board, int move) {
+        int to = Move.to(move);
+        if (board.pieceAt(to) != null) {
+            return true;
+        }
+        // A pawn moving diagonally onto an empty square is taking en passant
+        return board.pieceTypeAt(Move.from(move)) == ChessPiece.PieceType.PAWN
+                && (Move.from(move) - to) % 8 != 0;
+    }
+}
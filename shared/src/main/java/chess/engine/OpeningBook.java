@@ -0,0 +1,167 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Move;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Reads a Polyglot (.bin) opening book. The file is memory-mapped rather than read, so a
+ * book of any size costs no heap and only the pages a lookup touches are ever loaded. A
+ * lookup binary searches the entries, which Polyglot sorts by key, and takes a few
+ * microseconds.
+ * <p>
+ * An OpeningBook never changes after it's opened and only reads the mapping at absolute
+ * offsets, so one instance can serve any number of searches and threads.
+ */
+public final class OpeningBook {
+
+    // System properties naming the book and Polyglot key files, see fromSystemProperties
+    public static final String BOOK_PROPERTY = "chess.engine.book";
+    public static final String KEYS_PROPERTY = "chess.engine.bookKeys";
+
+    // Each entry is a big-endian key (8 bytes), move (2), weight (2) and learning data (4)
+    private static final int ENTRY_BYTES = 16;
+    // Polyglot promotion codes 1-4
+    private static final ChessPiece.PieceType[] PROMOTIONS = {null, ChessPiece.PieceType.KNIGHT,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN};
+
+    private final ByteBuffer entries;
+    private final int size;
+    private final PolyglotKeys keys;
+
+    /**
+     * Maps a book file built with Polyglot's standard keys
+     *
+     * @param book the Polyglot book
+     * @throws IOException if the file can't be read or isn't a whole number of entries
+     */
+    public OpeningBook(Path book) throws IOException {
+        this(book, PolyglotKeys.standard());
+    }
+
+    /**
+     * Maps a book file
+     *
+     * @param book the Polyglot book
+     * @param keys the Polyglot key table the book was built with
+     * @throws IOException if the file can't be read or isn't a whole number of entries
+     */
+    public OpeningBook(Path book, PolyglotKeys keys) throws IOException {
+        try (FileChannel channel = FileChannel.open(book, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length % ENTRY_BYTES != 0 || length > Integer.MAX_VALUE) {
+                throw new IOException("Not a Polyglot book: " + book);
+            }
+            // The mapping stays valid after the channel is closed
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        }
+        size = entries.capacity() / ENTRY_BYTES;
+        this.keys = keys;
+    }
+
+    /**
+     * Opens the book named by the {@value #BOOK_PROPERTY} system property, with the keys in
+     * the file named by {@value #KEYS_PROPERTY} or Polyglot's standard ones if that isn't set
+     *
+     * @return the book, or null if no book is configured
+     */
+    public static OpeningBook fromSystemProperties() throws IOException {
+        String book = System.getProperty(BOOK_PROPERTY);
+        if (book == null) {
+            return null;
+        }
+        String keys = System.getProperty(KEYS_PROPERTY);
+        return new OpeningBook(Path.of(book), keys == null ? PolyglotKeys.standard() : PolyglotKeys.load(Path.of(keys)));
+    }
+
+    /**
+     * @return every legal move the book has for the position, in the book's order
+     */
+    public List<BookMove> moves(ChessGame game) {
+        long key = keys.key(game);
+        List<BookMove> moves = new ArrayList<>();
+        for (int i = firstEntry(key); i < size && keyAt(i) == key; i++) {
+            int offset = i * ENTRY_BYTES;
+            int move = toMove(game.getBoard(), entries.getShort(offset + 8) & 0xFFFF);
+            // A key can collide with another position's, so only moves legal here are trusted
+            if (game.isLegal(move)) {
+                moves.add(new BookMove(Move.toChessMove(move), entries.getShort(offset + 10) & 0xFFFF));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Picks one of the book's moves at random, in proportion to their weights
+     *
+     * @return the move, or null if the book has nothing to play here
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = moves(game);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) {
+            return null;
+        }
+        int target = random.nextInt(total);
+        for (BookMove move : moves) {
+            target -= move.weight();
+            if (target < 0) {
+                return move.move();
+            }
+        }
+        throw new IllegalStateException("Weights changed while picking");
+    }
+
+    /**
+     * @return how many entries the book has
+     */
+    public int size() {
+        return size;
+    }
+
+    // The first entry whose key isn't below the given one, comparing keys as unsigned like Polyglot
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int entry) {
+        return entries.getLong(entry * ENTRY_BYTES);
+    }
+
+    // Polyglot packs the end file and row, start file and row, and promotion piece in 3 bits
+    // each, and writes castling as the king taking its own rook
+    private static int toMove(ChessBoard board, int bookMove) {
+        int to = bookMove & 0x3F;
+        int from = (bookMove >>> 6) & 0x3F;
+        int promotion = (bookMove >>> 12) & 0x7;
+        if (board.pieceTypeAt(from) == ChessPiece.PieceType.KING && (from == 4 || from == 60)
+                && (to == from + 3 || to == from - 4)) {
+            to = to > from ? from + 2 : from - 2;
+        }
+        return Move.of(from, to, promotion < PROMOTIONS.length ? PROMOTIONS[promotion] : null);
+    }
+}
@@ -0,0 +1,120 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Searches one position on several threads at once, the "lazy SMP" way: every thread runs
+ * its own {@link Search} of the whole position and they only cooperate through a shared
+ * {@link TranspositionTable}. What one thread finds lets the others cut off or order their
+ * moves better, and half the helpers start an iteration ahead so they fill the table for
+ * depths the main thread hasn't reached yet.
+ * <p>
+ * The main thread is bound by the limits; when it finishes the helpers are stopped, and
+ * the move from the deepest finished iteration of any thread is played.
+ * <p>
+ * The helper threads are kept between searches, so close a ParallelSearch when done with it.
+ * Only one search may run on it at a time.
+ */
+public final class ParallelSearch implements AutoCloseable {
+
+    private final TranspositionTable table;
+    private final int threads;
+    private final ExecutorService helpers;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+    private Tablebase tablebase;
+
+    /**
+     * @param table the table the threads share
+     * @param threads how many threads to search on, including the calling thread
+     */
+    public ParallelSearch(TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one search thread: " + threads);
+        }
+        this.table = table;
+        this.threads = threads;
+        helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, null);
+    }
+
+    /**
+     * Searches the position until the main thread reaches a limit
+     *
+     * @param game the position to search, which is copied and never changed
+     * @param limits how deep and how long the main thread searches
+     * @param onIteration called with each of the main thread's finished iterations, may be null
+     * @return the result of the deepest iteration any thread finished, with every thread's nodes
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits, Consumer<SearchResult> onIteration) {
+        long start = System.nanoTime();
+        stopSignal.set(false);
+        // The helpers only stop when told, the main thread decides when the search is over
+        SearchLimits helperLimits = SearchLimits.depth(SearchLimits.MAX_DEPTH);
+        List<Future<SearchResult>> running = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            Search helper = new Search(game, table, stopSignal, 1 + (i & 1));
+            helper.setTablebase(tablebase);
+            running.add(helpers.submit(() -> helper.search(helperLimits)));
+        }
+
+        Search main = new Search(game, table);
+        main.setTablebase(tablebase);
+        SearchResult best = main.search(limits, onIteration);
+        stopSignal.set(true);
+        long nodes = best.nodes();
+        for (Future<SearchResult> future : running) {
+            SearchResult result = join(future);
+            nodes += result.nodes();
+            if (result.depth() > best.depth() && result.bestMove() != null) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.bestMove(), best.score(), best.depth(), nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * @param tablebase exact results every thread uses instead of searching its endings, may be null
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    @Override
+    public void close() {
+        if (helpers != null) {
+            stopSignal.set(true);
+            helpers.shutdown();
+        }
+    }
+
+    private static SearchResult join(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a search thread", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A search thread failed", e.getCause());
+        }
+    }
+}
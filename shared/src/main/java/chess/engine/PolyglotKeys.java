@@ -0,0 +1,130 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hashes positions the way Polyglot opening books are keyed. It works like
+ * {@link chess.Zobrist}, but with Polyglot's own fixed table of 781 random numbers: 768
+ * (piece, square) keys, 4 castling keys, 8 en passant file keys and one for white to move.
+ * <p>
+ * The standard table ships as the {@value #RESOURCE} resource and is what {@link #standard()}
+ * gives. {@link #load(Path)} reads another from any text that lists the 781 numbers in order
+ * as 0x-prefixed hex, such as the Random64 array in the Polyglot book format specification,
+ * copied as it stands.
+ */
+public final class PolyglotKeys {
+
+    public static final int COUNT = 781;
+    // Polyglot's own table, in the same text form load reads
+    public static final String RESOURCE = "/chess/engine/polyglot-random64.txt";
+
+    private static final int CASTLING = 768;
+    private static final int EN_PASSANT = 772;
+    private static final int WHITE_TO_MOVE = 780;
+    private static final Pattern HEX = Pattern.compile("0[xX]([0-9A-Fa-f]{1,16})");
+    // Polyglot's piece order is pawn, knight, bishop, rook, queen, king, black before white.
+    // Indexed by PieceType ordinal: KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] KINDS = {5, 4, 2, 1, 3, 0};
+
+    private final long[] random;
+
+    /**
+     * @param random the 781 numbers in Polyglot's order
+     */
+    public PolyglotKeys(long[] random) {
+        if (random.length != COUNT) {
+            throw new IllegalArgumentException("Polyglot keys need " + COUNT + " numbers, got " + random.length);
+        }
+        this.random = random.clone();
+    }
+
+    /**
+     * @return the keys standard Polyglot books are built with
+     */
+    public static PolyglotKeys standard() {
+        return Standard.KEYS;
+    }
+
+    /**
+     * Reads the table from a text file of 0x-prefixed hex numbers, ignoring everything between them
+     */
+    public static PolyglotKeys load(Path path) throws IOException {
+        return parse(Files.readString(path), path.toString());
+    }
+
+    private static PolyglotKeys parse(String text, String source) throws IOException {
+        Matcher matcher = HEX.matcher(text);
+        long[] random = new long[COUNT];
+        int count = 0;
+        while (matcher.find()) {
+            if (count == COUNT) {
+                throw new IOException("More than " + COUNT + " numbers in " + source);
+            }
+            random[count++] = Long.parseUnsignedLong(matcher.group(1), 16);
+        }
+        if (count != COUNT) {
+            throw new IOException("Expected " + COUNT + " numbers in " + source + ", found " + count);
+        }
+        return new PolyglotKeys(random);
+    }
+
+    /**
+     * @return the position's Polyglot key
+     */
+    public long key(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        long key = 0L;
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                // Polyglot squares are numbered a1 = 0 to h8 = 63 like ours
+                int base = 64 * (KINDS[type.ordinal()] * 2 + (team == ChessGame.TeamColor.WHITE ? 1 : 0));
+                long pieces = board.getPieces(team, type);
+                while (pieces != 0) {
+                    key ^= random[base + Long.numberOfTrailingZeros(pieces)];
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+        // The castling bits are in Polyglot's order already
+        int rights = game.getCastlingRights();
+        for (int i = 0; i < 4; i++) {
+            if ((rights & (1 << i)) != 0) {
+                key ^= random[CASTLING + i];
+            }
+        }
+        // Polyglot also only counts the file when a pawn stands ready to capture
+        int enPassantColumn = game.getEnPassantColumn();
+        if (enPassantColumn != 0) {
+            key ^= random[EN_PASSANT + enPassantColumn - 1];
+        }
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? key ^ random[WHITE_TO_MOVE] : key;
+    }
+
+    // Read the first time it's asked for, not whenever PolyglotKeys is
+    private static final class Standard {
+
+        static final PolyglotKeys KEYS;
+
+        static {
+            try (InputStream in = PolyglotKeys.class.getResourceAsStream(RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException("Missing resource " + RESOURCE);
+                }
+                KEYS = parse(new String(in.readAllBytes(), StandardCharsets.US_ASCII), RESOURCE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Finds a best move with a negamax alpha-beta search, deepened one ply at a time until the
+ * limits run out. Each iteration's best move is searched first in the next one, and when
+ * time or nodes run out mid-iteration the last finished iteration's move is used.
+ * <p>
+ * The search works on its own copy of the game and makes and unmakes packed moves on it,
+ * so it never allocates per node. A Search isn't thread safe, but any number of them can
+ * run at once on different threads.
+ * <p>
+ * Given a {@link TranspositionTable}, positions reached again by another move order are
+ * cut off from the stored bound when it was searched deep enough, and otherwise search the
+ * stored best move first. Below the root, moves are tried in {@link MovePicker}'s order;
+ * the killer moves and history scores it uses are learned afresh in each search.
+ */
+public final class Search {
+
+    public static final int INFINITY = 32000;
+    // Mate scores are MATE minus the plies to the mate, so shorter mates score higher
+    public static final int MATE = 31000;
+    public static final int MATE_THRESHOLD = MATE - SearchLimits.MAX_DEPTH * 2;
+
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH * 2;
+    // The clock is only read every this many nodes (plus one), it costs more than a node
+    private static final int CHECK_INTERVAL = 1023;
+    private static final int FIFTY_MOVES = 100;
+    // History scores are halved when one reaches this, so recent cutoffs count for more
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private ChessGame game;
+    private final TranspositionTable table;
+    // Set by another thread to end the search early, null if only the limits end it
+    private final AtomicBoolean stopSignal;
+    private final int firstDepth;
+    private Tablebase tablebase;
+    private final MoveList rootMoves = new MoveList();
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];
+    // Two quiet moves per ply that last caused a cutoff there
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // How often each quiet move caused a cutoff, weighted by depth: [team][from * 64 + to]
+    private final int[][] history = new int[2][64 * 64];
+    // Keys of the game's positions before the root, then of each ply on the current path;
+    // the root's key is at rootIndex
+    private long[] pathKeys = new long[MAX_PLY + 1];
+    private int rootIndex;
+
+    private long nodes;
+    private long deadline;
+    private long nodeLimit;
+    private boolean stopped;
+    private int rootBest;
+
+    /**
+     * @param game the position to search, which is copied and never changed
+     */
+    public Search(ChessGame game) {
+        this(game, null);
+    }
+
+    /**
+     * @param game the position to search, which is copied and never changed
+     * @param table where to remember searched positions, may be null; it can be shared
+     */
+    public Search(ChessGame game, TranspositionTable table) {
+        this(game, table, null, 1);
+    }
+
+    /**
+     * For searches run as one of several threads
+     *
+     * @param stopSignal ends the search once set, as if its limits ran out
+     * @param firstDepth the depth of the first iteration
+     */
+    Search(ChessGame game, TranspositionTable table, AtomicBoolean stopSignal, int firstDepth) {
+        this.game = new ChessGame(game);
+        this.table = table;
+        this.stopSignal = stopSignal;
+        this.firstDepth = firstDepth;
+        for (int i = 0; i < pickers.length; i++) {
+            pickers[i] = new MovePicker();
+        }
+    }
+
+    /**
+     * Moves the search on to another position, keeping its tables, for callers that search
+     * many positions one after another
+     *
+     * @param game the position to search next, which is copied and never changed
+     */
+    public void setPosition(ChessGame game) {
+        this.game = new ChessGame(game);
+    }
+
+    public SearchResult search(SearchLimits limits) {
+        return search(limits, null);
+    }
+
+    /**
+     * Searches the position until a limit is reached
+     *
+     * @param limits how deep and how long to search
+     * @param onIteration called with the result of each finished iteration, may be null
+     * @return the result of the deepest finished iteration
+     */
+    public SearchResult search(SearchLimits limits, Consumer<SearchResult> onIteration) {
+        long start = System.nanoTime();
+        deadline = limits.maxMillis() > 0 ? start + limits.maxMillis() * 1_000_000 : Long.MAX_VALUE;
+        nodeLimit = limits.maxNodes() > 0 ? limits.maxNodes() : Long.MAX_VALUE;
+        nodes = 0;
+        stopped = false;
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+        for (int[] teamHistory : history) {
+            Arrays.fill(teamHistory, 0);
+        }
+        if (table != null) {
+            table.newSearch();
+        }
+
+        rootMoves.clear();
+        game.addLegalMoves(game.getTeamTurn(), rootMoves);
+        if (rootMoves.isEmpty()) {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, System.nanoTime() - start);
+        }
+        // Positions the game has already been through count as repetitions too
+        long[] played = game.getPositionHistory();
+        if (pathKeys.length < played.length + MAX_PLY) {
+            pathKeys = new long[played.length + MAX_PLY];
+        }
+        System.arraycopy(played, 0, pathKeys, 0, played.length);
+        rootIndex = played.length - 1;
+        rootBest = rootMoves.get(0);
+
+        SearchResult result = new SearchResult(Move.toChessMove(rootBest), 0, 0, 0, 0);
+        for (int depth = firstDepth; depth <= limits.maxDepth(); depth++) {
+            int score = searchRoot(depth);
+            // A cut-short iteration only counts if it's the first, there's nothing better to use
+            if (stopped && depth > 1) {
+                break;
+            }
+            // Stopped before even one root move was scored: the first move stands, with the
+            // static score rather than -INFINITY, which would read as being mated
+            if (score == -INFINITY) {
+                score = Evaluation.evaluate(game);
+            }
+            result = new SearchResult(Move.toChessMove(rootBest), score, depth, nodes, System.nanoTime() - start);
+            if (onIteration != null) {
+                onIteration.accept(result);
+            }
+            if (stopped || Math.abs(score) >= MATE_THRESHOLD || rootMoves.size() == 1) {
+                break;
+            }
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * @return how many positions the last search visited so far
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * @param tablebase exact results to use instead of searching its endings, may be null
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * The line the last search expects to be played: its best move, followed by the stored
+     * best move of each position after it for as long as the transposition table has one.
+     * Without a table that's only the best move. Stored moves can be overwritten or belong
+     * to another position, so the line may end early, and only legal moves are followed.
+     *
+     * @param maxLength the most moves to return
+     * @return the moves in order, empty if no search has run or there were no legal moves
+     */
+    public List<ChessMove> principalVariation(int maxLength) {
+        List<ChessMove> line = new ArrayList<>();
+        if (rootMoves.isEmpty() || maxLength < 1) {
+            return line;
+        }
+        maxLength = Math.min(maxLength, MAX_PLY);
+        long[] undo = new long[maxLength];
+        int length = 0;
+        int move = rootBest;
+        while (true) {
+            undo[length++] = game.makeMove(move);
+            line.add(Move.toChessMove(move));
+            // Stop at a repetition, a stored line can go round in circles
+            pathKeys[rootIndex + length] = game.positionKey();
+            if (length == maxLength || table == null || isDraw(length)) {
+                break;
+            }
+            long entry = table.probe(pathKeys[rootIndex + length]);
+            move = entry == 0 ? Move.NONE : TranspositionTable.move(entry);
+            if (move == Move.NONE || !game.isLegal(move)) {
+                break;
+            }
+        }
+        while (length > 0) {
+            game.unmakeMove(undo[--length]);
+        }
+        return line;
+    }
+
+    private int searchRoot(int depth) {
+        // Try the last iteration's best move first, it sets the tightest bound soonest
+        moveToFront(rootMoves, rootBest);
+
+        int alpha = -INFINITY;
+        int best = rootBest;
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            long undo = game.makeMove(move);
+            int score = -negamax(depth - 1, -INFINITY, -alpha, 1);
+            game.unmakeMove(undo);
+            if (stopped) {
+                break;
+            }
+            if (score > alpha) {
+                alpha = score;
+                best = move;
+            }
+        }
+        if (!stopped || depth == 1) {
+            rootBest = best;
+        }
+        return alpha;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        if (depth <= 0) {
+            return quiesce(alpha, beta, ply);
+        }
+        if (countNode()) {
+            return 0;
+        }
+        pathKeys[rootIndex + ply] = game.positionKey();
+        if (isDraw(ply)) {
+            return 0;
+        }
+        if (tablebase != null) {
+            int result = tablebase.probe(game);
+            if (result != Tablebase.NOT_FOUND) {
+                return tablebaseScore(result, ply);
+            }
+        }
+        if (ply >= MAX_PLY) {
+            return Evaluation.evaluate(game);
+        }
+
+        int hashMove = Move.NONE;
+        if (table != null) {
+            long entry = table.probe(pathKeys[rootIndex + ply]);
+            if (entry != 0) {
+                hashMove = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || bound == TranspositionTable.LOWER && score >= beta
+                            || bound == TranspositionTable.UPPER && score <= alpha) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        int[] teamHistory = history[game.getTeamTurn().ordinal()];
+        MovePicker picker = pickers[ply];
+        picker.start(game, hashMove, killers[ply][0], killers[ply][1], teamHistory);
+
+        int alphaBefore = alpha;
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            long undo = game.makeMove(move);
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            game.unmakeMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (!MovePicker.isTactical(game.getBoard(), move)) {
+                            rememberQuietCutoff(move, depth, ply, teamHistory);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (bestMove == Move.NONE) {
+            return game.isInCheck(game.getTeamTurn()) ? -MATE + ply : 0;
+        }
+
+        if (table != null) {
+            // A score at or below the starting alpha is only an upper bound, and no move was best
+            int bound = best >= beta ? TranspositionTable.LOWER
+                    : best > alphaBefore ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(pathKeys[rootIndex + ply], bound == TranspositionTable.UPPER ? Move.NONE : bestMove,
+                    toTable(best, ply), depth, bound);
+        }
+        return best;
+    }
+
+    private void rememberQuietCutoff(int move, int depth, int ply, int[] teamHistory) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+        int index = Move.from(move) * 64 + Move.to(move);
+        teamHistory[index] += depth * depth;
+        if (teamHistory[index] >= HISTORY_LIMIT) {
+            for (int i = 0; i < teamHistory.length; i++) {
+                teamHistory[i] /= 2;
+            }
+        }
+    }
+
+    private static int tablebaseScore(int result, int ply) {
+        if (result == 0) {
+            return 0;
+        }
+        int mate = MATE - ply - Tablebase.plies(result);
+        return result > 0 ? mate : -mate;
+    }
+
+    // Mate scores count plies from the root, but the table is shared between paths of any length,
+    // so they're stored counting from the position itself
+    private static int toTable(int score, int ply) {
+        return score >= MATE_THRESHOLD ? score + ply : score <= -MATE_THRESHOLD ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= MATE_THRESHOLD ? score - ply : score <= -MATE_THRESHOLD ? score + ply : score;
+    }
+
+    // Past the search depth only captures and promotions are tried, so a leaf is never scored
+    // in the middle of an exchange. The team to move can always stand pat instead
+    private int quiesce(int alpha, int beta, int ply) {
+        if (countNode()) {
+            return 0;
+        }
+        int standPat = Evaluation.evaluate(game);
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        MovePicker picker = pickers[ply];
+        picker.startCaptures(game);
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            long undo = game.makeMove(move);
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            game.unmakeMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    // Counts a node and checks the limits now and then, returns true once the search must stop
+    private boolean countNode() {
+        nodes++;
+        if ((nodes & CHECK_INTERVAL) == 0 && (nodes >= nodeLimit || System.nanoTime() >= deadline
+                || stopSignal != null && stopSignal.get())) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    // A position repeated on the search path, or from earlier in the game, is scored as a draw
+    // straight away; the game would only repeat it again if that was the best either side could do
+    private boolean isDraw(int ply) {
+        int halfmoveClock = game.getHalfmoveClock();
+        if (halfmoveClock >= FIFTY_MOVES || game.getBoard().hasInsufficientMaterial()) {
+            return true;
+        }
+        int current = rootIndex + ply;
+        long key = pathKeys[current];
+        for (int i = current - 2; i >= Math.max(0, current - halfmoveClock); i -= 2) {
+            if (pathKeys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void moveToFront(MoveList list, int move) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == move) {
+                list.set(i, list.get(0));
+                list.set(0, move);
+                return;
+            }
+        }
+    }
+}
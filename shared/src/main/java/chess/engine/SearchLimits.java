@@ -0,0 +1,44 @@
+package chess.engine;
+
+/**
+ * How long a search may run. A search stops at whichever limit it reaches first; 0 means
+ * no limit on time or nodes.
+ *
+ * @param maxDepth the deepest iteration to start, in plies
+ * @param maxMillis wall-clock budget in milliseconds
+ * @param maxNodes budget of positions visited
+ */
+public record SearchLimits(int maxDepth, long maxMillis, long maxNodes) {
+
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (maxDepth < 1 || maxDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Search depth must be between 1 and " + MAX_DEPTH + ": " + maxDepth);
+        }
+        if (maxMillis < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException("Search budgets can't be negative");
+        }
+    }
+
+    /**
+     * @return limits that search to a fixed depth, however long it takes
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * @return limits that search as deep as they can in the given time
+     */
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(MAX_DEPTH, millis, 0);
+    }
+
+    /**
+     * @return limits that search as deep as they can within the given number of nodes
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, 0, nodes);
+    }
+}
@@ -0,0 +1,30 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+/**
+ * The outcome of a search, or of one completed iteration of it
+ *
+ * @param bestMove the move the search settled on, or null if there are no legal moves
+ * @param score how good the position is for the team to move, in centipawns; scores
+ *              beyond {@link Search#MATE_THRESHOLD} mean a forced mate
+ * @param depth the deepest iteration that finished
+ * @param nodes how many positions were visited
+ * @param nanos how long the search took
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long nanos) {
+
+    /**
+     * @return the average number of positions visited per second
+     */
+    public long nodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    /**
+     * @return True if the score is a forced mate for either team
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_THRESHOLD;
+    }
+}
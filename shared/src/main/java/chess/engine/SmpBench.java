@@ -0,0 +1,59 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+
+/**
+ * Multi-threaded search benchmark: searches the {@link Bench} positions to a fixed depth
+ * with 1, 2, 4, 8 and 16 threads and prints how much sooner each thread count gets there.
+ * Time to depth is the speedup that matters; the node rate also grows with threads, but
+ * much of that is threads searching the same positions.
+ * <p>
+ * Usage: {@code SmpBench [depth] [table megabytes] [thread counts...]}
+ */
+public final class SmpBench {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    private SmpBench() {
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int[] threadCounts = THREADS;
+        if (args.length > 2) {
+            threadCounts = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                threadCounts[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("Depth " + depth + ", " + megabytes + " MB table, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        System.out.println("threads        time      nodes/s  speedup  mean depth");
+        TranspositionTable table = new TranspositionTable(megabytes);
+        double baseline = 0;
+        for (int threads : threadCounts) {
+            long nanos = 0;
+            long nodes = 0;
+            int totalDepth = 0;
+            try (ParallelSearch search = new ParallelSearch(table, threads)) {
+                for (String fen : Bench.POSITIONS) {
+                    // Every position starts from an empty table, so runs don't help each other
+                    table.clear();
+                    ChessGame game = Fen.parse(fen);
+                    SearchResult result = search.search(game, SearchLimits.depth(depth));
+                    nanos += result.nanos();
+                    nodes += result.nodes();
+                    totalDepth += result.depth();
+                }
+            }
+            if (baseline == 0) {
+                baseline = nanos;
+            }
+            System.out.printf("%7d  %8.3f s  %11.0f  %6.2fx  %10.1f%n", threads, nanos / 1e9,
+                    nodes / (nanos / 1e9), baseline / nanos, totalDepth / (double) Bench.POSITIONS.length);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exact results for the endings in {@link Endgame}, read from a file built by
+ * {@link TablebaseGenerator}. The file is memory-mapped, and each position has one byte
+ * at a computed offset, so a probe is a single read.
+ * <p>
+ * A result is a distance to mate in plies, from the point of view of the team to move:
+ * <ul>
+ *     <li>0 is a draw;</li>
+ *     <li>n &gt; 0 means the team to move mates in n plies;</li>
+ *     <li>n &lt; 0 means the team to move is mated in -n - 1 plies, -1 being checkmated already.</li>
+ * </ul>
+ * Distances ignore the fifty-move rule, and positions with castling rights aren't covered.
+ * <p>
+ * The file holds a magic number, a directory of (ending ordinal, offset, length) entries,
+ * then the tables themselves. A Tablebase is read-only, so one can be shared by every
+ * search and thread.
+ */
+public final class Tablebase {
+
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+    // System property naming the tablebase file, see fromSystemProperties
+    public static final String FILE_PROPERTY = "chess.engine.tablebase";
+
+    // "CTB1"
+    static final int MAGIC = 0x43544231;
+    static final int HEADER_BYTES = 8;
+    static final int DIRECTORY_ENTRY_BYTES = 12;
+
+    private static final Endgame[] ENDGAMES = Endgame.values();
+
+    private final ByteBuffer[] tables = new ByteBuffer[ENDGAMES.length];
+
+    private Tablebase(ByteBuffer file, Path path) throws IOException {
+        if (file.capacity() < HEADER_BYTES || file.getInt(0) != MAGIC) {
+            throw new IOException("Not a tablebase file: " + path);
+        }
+        int count = file.getInt(4);
+        for (int i = 0; i < count; i++) {
+            int entry = HEADER_BYTES + i * DIRECTORY_ENTRY_BYTES;
+            int ending = file.getInt(entry);
+            int offset = file.getInt(entry + 4);
+            int length = file.getInt(entry + 8);
+            if (ending < 0 || ending >= ENDGAMES.length || length != ENDGAMES[ending].size()
+                    || (long) offset + length > file.capacity()) {
+                throw new IOException("Corrupt tablebase directory in " + path);
+            }
+            tables[ending] = file.slice(offset, length);
+        }
+    }
+
+    /**
+     * Maps a tablebase file
+     */
+    public static Tablebase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a tablebase file: " + path);
+            }
+            return new Tablebase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), path);
+        }
+    }
+
+    /**
+     * @return the tablebase named by the {@value #FILE_PROPERTY} system property, or null if it isn't set
+     */
+    public static Tablebase fromSystemProperties() throws IOException {
+        String path = System.getProperty(FILE_PROPERTY);
+        return path == null ? null : open(Path.of(path));
+    }
+
+    /**
+     * Looks a position up
+     *
+     * @return the result for the team to move (see above), or {@link #NOT_FOUND} if the
+     * position's ending isn't in the file
+     */
+    public int probe(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int count = Long.bitCount(board.getOccupied());
+        if (count < 3 || count > 4 || game.getCastlingRights() != 0) {
+            return NOT_FOUND;
+        }
+        ChessGame.TeamColor strong = Long.bitCount(board.getTeamPieces(ChessGame.TeamColor.WHITE)) > 1
+                ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        for (Endgame endgame : ENDGAMES) {
+            if (tables[endgame.ordinal()] != null && endgame.matches(board, strong)) {
+                // Tables are built with the strong side as white, so a black one turns the board over
+                int flip = strong == ChessGame.TeamColor.WHITE ? 0 : 56;
+                int second = endgame.pieceCount() == 2 ? square(board, strong, endgame.piece(1)) ^ flip : 0;
+                int index = endgame.index(game.getTeamTurn() == strong ? 0 : 1,
+                        square(board, strong, ChessPiece.PieceType.KING) ^ flip,
+                        square(board, strong.opponent(), ChessPiece.PieceType.KING) ^ flip,
+                        square(board, strong, endgame.piece(0)) ^ flip, second);
+                return tables[endgame.ordinal()].get(index);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return True if the file has a table for the ending
+     */
+    public boolean covers(Endgame endgame) {
+        return tables[endgame.ordinal()] != null;
+    }
+
+    /**
+     * @return how many plies until the mate a won or lost result counts down to
+     */
+    public static int plies(int result) {
+        return result > 0 ? result : -result - 1;
+    }
+
+    // The stored result for a position lost in the given number of plies
+    static byte loss(int plies) {
+        return (byte) (-plies - 1);
+    }
+
+    private static int square(ChessBoard board, ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return Long.numberOfTrailingZeros(board.getPieces(team, type));
+    }
+}
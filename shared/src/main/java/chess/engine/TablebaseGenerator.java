@@ -0,0 +1,379 @@
+package chess.engine;
+
+import chess.Bitboards;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Builds {@link Tablebase} tables by retrograde analysis. The bare king can never win, so
+ * every position is either a draw or a forced mate for the strong side. The generator starts
+ * from the checkmates and works backwards one ply at a time:
+ * <ul>
+ *     <li>a position with the strong side to move is won in n+1 plies if one of its moves
+ *     reaches a position lost in n, found by taking the strong side's moves back;</li>
+ *     <li>a position with the bare king to move is lost in n+1 plies once every one of its
+ *     moves reaches a position won in at most n. Its candidates are found by taking king
+ *     moves back from the positions won in n, then checked move by move.</li>
+ * </ul>
+ * Working outwards from the mates like this, the first distance a position is given is
+ * its shortest mate. Whatever isn't won or lost when nothing changes any more is a draw.
+ * <p>
+ * Captures and promotions leave the table. A bare king that can take a piece reaches a
+ * draw; a pawn promoting to a queen or rook reaches a position already in the KQK or KRK
+ * table, which is therefore built first.
+ * <p>
+ * Usage: {@code TablebaseGenerator [output file]}
+ */
+public final class TablebaseGenerator {
+
+    // What blackMoves returns when the king can take a piece; no real set of king moves covers the board
+    private static final long CAN_CAPTURE = -1L;
+
+    private final Map<Endgame, byte[]> tables = new EnumMap<>(Endgame.class);
+
+    public static void main(String[] args) throws IOException {
+        Path output = Path.of(args.length > 0 ? args[0] : "tablebase.bin");
+        TablebaseGenerator generator = new TablebaseGenerator();
+        for (Endgame endgame : Endgame.values()) {
+            long start = System.nanoTime();
+            byte[] table = generator.generate(endgame);
+            int won = 0;
+            int longest = 0;
+            for (byte value : table) {
+                if (value > 0) {
+                    won++;
+                    longest = Math.max(longest, value);
+                }
+            }
+            System.out.printf("%-5s %9d entries  %9d won  longest mate %3d plies  %6.2f s%n", endgame,
+                    table.length, won, longest, (System.nanoTime() - start) / 1e9);
+        }
+        generator.write(output);
+        System.out.println("Wrote " + output + " (" + Files.size(output) + " bytes)");
+    }
+
+    /**
+     * Builds an ending's table, and any it depends on, unless it's already built
+     *
+     * @return the table, one {@link Tablebase} result byte per {@link Endgame#index} entry
+     */
+    public byte[] generate(Endgame endgame) {
+        byte[] table = tables.get(endgame);
+        if (table == null) {
+            if (endgame.piece(0) == ChessPiece.PieceType.PAWN) {
+                generate(Endgame.KQK);
+                generate(Endgame.KRK);
+            }
+            table = new Retrograde(endgame).run();
+            tables.put(endgame, table);
+        }
+        return table;
+    }
+
+    /**
+     * Writes every table built so far in the format {@link Tablebase#open} maps
+     */
+    public void write(Path path) throws IOException {
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(tables.size());
+            int offset = Tablebase.HEADER_BYTES + tables.size() * Tablebase.DIRECTORY_ENTRY_BYTES;
+            for (Map.Entry<Endgame, byte[]> entry : tables.entrySet()) {
+                out.writeInt(entry.getKey().ordinal());
+                out.writeInt(offset);
+                out.writeInt(entry.getValue().length);
+                offset += entry.getValue().length;
+            }
+            for (byte[] table : tables.values()) {
+                out.write(table);
+            }
+        }
+    }
+
+    // The analysis of one ending. Positions are handled as squares rather than ChessBoards,
+    // since every one of millions of entries is visited several times
+    private final class Retrograde {
+
+        private final Endgame endgame;
+        private final ChessPiece.PieceType first;
+        private final ChessPiece.PieceType second;
+        private final byte[] values;
+        private final int[] squares = new int[5];
+        private final int[] other = new int[5];
+        // Wins a pawn reaches by promoting, as plies, waiting for the search to reach that distance
+        private byte[] promotionWins;
+
+        Retrograde(Endgame endgame) {
+            this.endgame = endgame;
+            first = endgame.piece(0);
+            second = endgame.pieceCount() == 2 ? endgame.piece(1) : null;
+            values = new byte[endgame.size()];
+        }
+
+        byte[] run() {
+            Positions losses = new Positions();
+            int lastPromotionWin = 0;
+            for (int index = 0; index < values.length; index++) {
+                endgame.decode(index, squares);
+                if (!isLegal(squares)) {
+                    continue;
+                }
+                if (squares[0] == 1) {
+                    if (blackMoves(squares) == 0 && isBlackInCheck(squares)) {
+                        values[index] = Tablebase.loss(0);
+                        losses.add(index);
+                    }
+                } else if (first == ChessPiece.PieceType.PAWN) {
+                    int plies = promotionWin(squares);
+                    if (plies > 0) {
+                        if (promotionWins == null) {
+                            promotionWins = new byte[values.length];
+                        }
+                        promotionWins[index] = (byte) plies;
+                        lastPromotionWin = Math.max(lastPromotionWin, plies);
+                    }
+                }
+            }
+
+            for (int lossPlies = 0; !losses.isEmpty() || lossPlies < lastPromotionWin; lossPlies += 2) {
+                int winPlies = lossPlies + 1;
+                Positions wins = new Positions();
+                for (int i = 0; i < losses.size(); i++) {
+                    addWhitePredecessors(losses.get(i), winPlies, wins);
+                }
+                if (promotionWins != null && winPlies <= lastPromotionWin) {
+                    for (int index = 0; index < values.length; index++) {
+                        if (promotionWins[index] == winPlies && values[index] == 0) {
+                            values[index] = (byte) winPlies;
+                            wins.add(index);
+                        }
+                    }
+                }
+
+                losses = new Positions();
+                for (int i = 0; i < wins.size(); i++) {
+                    addBlackPredecessors(wins.get(i), winPlies + 1, losses);
+                }
+            }
+            return values;
+        }
+
+        // Every position with white to move that reaches this lost one in a move is won
+        private void addWhitePredecessors(int index, int plies, Positions wins) {
+            endgame.decode(index, squares);
+            int whiteKing = squares[1];
+            int blackKing = squares[2];
+            long occupied = occupied(squares);
+
+            long from = Bitboards.kingAttacksFrom(whiteKing) & ~occupied & ~Bitboards.kingAttacksFrom(blackKing);
+            for (; from != 0; from &= from - 1) {
+                addWhitePredecessor(Long.numberOfTrailingZeros(from), squares[3], squares[4], plies, wins);
+            }
+            from = retreats(first, squares[3], occupied);
+            for (; from != 0; from &= from - 1) {
+                addWhitePredecessor(whiteKing, Long.numberOfTrailingZeros(from), squares[4], plies, wins);
+            }
+            if (second != null) {
+                from = retreats(second, squares[4], occupied);
+                for (; from != 0; from &= from - 1) {
+                    addWhitePredecessor(whiteKing, squares[3], Long.numberOfTrailingZeros(from), plies, wins);
+                }
+            }
+        }
+
+        private void addWhitePredecessor(int whiteKing, int firstSquare, int secondSquare, int plies,
+                                         Positions wins) {
+            other[0] = 0;
+            other[1] = whiteKing;
+            other[2] = squares[2];
+            other[3] = firstSquare;
+            other[4] = secondSquare;
+            // White can't have left the black king in check on the move before
+            if (isBlackInCheck(other)) {
+                return;
+            }
+            int index = endgame.index(0, whiteKing, squares[2], firstSquare, secondSquare);
+            if (values[index] == 0) {
+                values[index] = (byte) plies;
+                wins.add(index);
+            }
+        }
+
+        // Every position with black to move whose moves all reach won positions is lost
+        private void addBlackPredecessors(int index, int plies, Positions losses) {
+            endgame.decode(index, squares);
+            long from = Bitboards.kingAttacksFrom(squares[2]) & ~occupied(squares)
+                    & ~Bitboards.kingAttacksFrom(squares[1]);
+            for (; from != 0; from &= from - 1) {
+                other[0] = 1;
+                other[1] = squares[1];
+                other[2] = Long.numberOfTrailingZeros(from);
+                other[3] = squares[3];
+                other[4] = squares[4];
+                int predecessor = endgame.index(1, other[1], other[2], other[3], other[4]);
+                if (values[predecessor] == 0 && allMovesLose(other)) {
+                    values[predecessor] = Tablebase.loss(plies);
+                    losses.add(predecessor);
+                }
+            }
+        }
+
+        private boolean allMovesLose(int[] position) {
+            long moves = blackMoves(position);
+            // Mated and stalemated positions never get here; mates are found first and stalemates are draws
+            if (moves == CAN_CAPTURE || moves == 0) {
+                return false;
+            }
+            for (; moves != 0; moves &= moves - 1) {
+                int to = Long.numberOfTrailingZeros(moves);
+                if (values[endgame.index(0, position[1], to, position[3], position[4])] <= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // The black king's legal moves as a mask, or CAN_CAPTURE if it can take a piece, which draws
+        private long blackMoves(int[] position) {
+            int whiteKing = position[1];
+            int blackKing = position[2];
+            long pieces = pieces(position);
+            long occupied = Bitboards.bit(whiteKing) | pieces;
+            long targets = Bitboards.kingAttacksFrom(blackKing) & ~Bitboards.kingAttacksFrom(whiteKing);
+
+            // Sliders see through the king, so it can't step back along the line of a check
+            long attacked = whiteAttacks(whiteKing, position[3], position[4], occupied);
+            for (long captures = targets & pieces; captures != 0; captures &= captures - 1) {
+                int capture = Long.numberOfTrailingZeros(captures);
+                long rest = occupied & ~Bitboards.bit(capture);
+                long defended = capture == position[3]
+                        ? (second == null ? 0L : attacks(second, position[4], rest))
+                        : attacks(first, position[3], rest);
+                if (((defended | Bitboards.kingAttacksFrom(whiteKing)) & Bitboards.bit(capture)) == 0) {
+                    return CAN_CAPTURE;
+                }
+            }
+            return targets & ~pieces & ~attacked;
+        }
+
+        private boolean isBlackInCheck(int[] position) {
+            long occupied = Bitboards.bit(position[1]) | pieces(position);
+            return (whiteAttacks(position[1], position[3], position[4], occupied) & Bitboards.bit(position[2])) != 0;
+        }
+
+        // The fewest plies to mate by promoting now, or 0 if promoting doesn't win
+        private int promotionWin(int[] position) {
+            int pawn = position[3];
+            int to = pawn + 8;
+            if (Bitboards.row(pawn) != 7 || to == position[1] || to == position[2]) {
+                return 0;
+            }
+            int best = 0;
+            for (Endgame promoted : new Endgame[]{Endgame.KQK, Endgame.KRK}) {
+                int value = tables.get(promoted)[promoted.index(1, position[1], position[2], to, 0)];
+                if (value < 0) {
+                    int plies = Tablebase.plies(value) + 1;
+                    best = best == 0 ? plies : Math.min(best, plies);
+                }
+            }
+            return best;
+        }
+
+        private boolean isLegal(int[] position) {
+            int whiteKing = position[1];
+            int blackKing = position[2];
+            long all = Bitboards.bit(whiteKing) | Bitboards.bit(blackKing) | Bitboards.bit(position[3]);
+            int count = 3;
+            if (second != null) {
+                all |= Bitboards.bit(position[4]);
+                count++;
+            }
+            if (Long.bitCount(all) != count
+                    || (Bitboards.kingAttacksFrom(whiteKing) & Bitboards.bit(blackKing)) != 0) {
+                return false;
+            }
+            if (first == ChessPiece.PieceType.PAWN && (Bitboards.row(position[3]) == 1 || Bitboards.row(position[3]) == 8)) {
+                return false;
+            }
+            // The side that just moved can't be in check
+            return position[0] == 1 || !isBlackInCheck(position);
+        }
+
+        // Squares a white piece could have moved here from: its own moves backwards, to empty squares
+        private long retreats(ChessPiece.PieceType type, int square, long occupied) {
+            if (type != ChessPiece.PieceType.PAWN) {
+                return attacks(type, square, occupied) & ~occupied;
+            }
+            int row = Bitboards.row(square);
+            long from = 0L;
+            if (row > 2 && (occupied & Bitboards.bit(square - 8)) == 0) {
+                from |= Bitboards.bit(square - 8);
+                if (row == 4 && (occupied & Bitboards.bit(square - 16)) == 0) {
+                    from |= Bitboards.bit(square - 16);
+                }
+            }
+            return from;
+        }
+
+        private long whiteAttacks(int whiteKing, int firstSquare, int secondSquare, long occupied) {
+            long attacked = Bitboards.kingAttacksFrom(whiteKing) | attacks(first, firstSquare, occupied);
+            return second == null ? attacked : attacked | attacks(second, secondSquare, occupied);
+        }
+
+        private long pieces(int[] position) {
+            long pieces = Bitboards.bit(position[3]);
+            return second == null ? pieces : pieces | Bitboards.bit(position[4]);
+        }
+
+        private long occupied(int[] position) {
+            return Bitboards.bit(position[1]) | Bitboards.bit(position[2]) | pieces(position);
+        }
+    }
+
+    private static long attacks(ChessPiece.PieceType type, int square, long occupied) {
+        return switch (type) {
+            case KING -> Bitboards.kingAttacksFrom(square);
+            case QUEEN -> Bitboards.queenAttacks(square, occupied);
+            case BISHOP -> Bitboards.bishopAttacks(square, occupied);
+            case KNIGHT -> Bitboards.knightAttacksFrom(square);
+            case ROOK -> Bitboards.rookAttacks(square, occupied);
+            case PAWN -> Bitboards.pawnAttacksFrom(square, ChessGame.TeamColor.WHITE);
+        };
+    }
+
+    // A growable list of table indexes
+    private static final class Positions {
+        private int[] indexes = new int[1024];
+        private int size;
+
+        void add(int index) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            indexes[size++] = index;
+        }
+
+        int get(int i) {
+            return indexes[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
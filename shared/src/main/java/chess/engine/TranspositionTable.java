@@ -0,0 +1,190 @@
+package chess.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size hash table of search results, keyed by {@link chess.ChessGame#positionKey()}.
+ * It lives in one direct buffer off the Java heap, so however large it is the garbage
+ * collector never scans it.
+ * <p>
+ * Entries are 16 bytes: the entry's data and the key XOR the data. Threads share the
+ * table without locks; if two writes to one entry interleave, the key no longer checks
+ * out against the data and the entry just reads as a miss. Four entries make a 64-byte
+ * cluster, and a new result replaces the entry in its cluster that is shallowest and
+ * from the oldest search.
+ * <p>
+ * A hit comes back as the packed data word, read with {@link #move(long)},
+ * {@link #score(long)}, {@link #depth(long)} and {@link #bound(long)}. The table only
+ * stores scores; mate scores should be made relative to the position before storing.
+ */
+public final class TranspositionTable {
+
+    public static final int DEFAULT_MEGABYTES = 16;
+    public static final int MAX_MEGABYTES = 1024;
+    // System property the server and tools read the table size from, in megabytes
+    public static final String SIZE_PROPERTY = "chess.engine.hashMegabytes";
+
+    // Bound types: the stored score is exact, at least (failed high) or at most (failed low)
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int CLUSTER_ENTRIES = 4;
+    private static final int CLUSTER_BYTES = ENTRY_BYTES * CLUSTER_ENTRIES;
+    // Aligned 8-byte accesses through this handle are atomic, which plain ByteBuffer reads aren't promised to be
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+
+    private final ByteBuffer entries;
+    private final int clusterMask;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    // Bumped once per search, so entries from earlier searches are replaced first
+    private volatile int generation;
+
+    /**
+     * @param megabytes how much memory to use, rounded down to a power of two bytes
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > MAX_MEGABYTES) {
+            throw new IllegalArgumentException("Table size must be between 1 and " + MAX_MEGABYTES + " MB: "
+                    + megabytes);
+        }
+        int clusters = Integer.highestOneBit((int) ((long) megabytes * 1024 * 1024 / CLUSTER_BYTES));
+        entries = ByteBuffer.allocateDirect(clusters * CLUSTER_BYTES).order(ByteOrder.nativeOrder());
+        clusterMask = clusters - 1;
+    }
+
+    /**
+     * @return a table sized by the {@value #SIZE_PROPERTY} system property, or
+     * {@value #DEFAULT_MEGABYTES} MB if it isn't set
+     */
+    public static TranspositionTable fromSystemProperties() {
+        return new TranspositionTable(Integer.getInteger(SIZE_PROPERTY, DEFAULT_MEGABYTES));
+    }
+
+    /**
+     * Looks a position up
+     *
+     * @param key the position's Zobrist key
+     * @return the entry's packed data, or 0 if the position isn't in the table
+     */
+    public long probe(long key) {
+        probes.increment();
+        int cluster = clusterOffset(key);
+        for (int i = 0; i < CLUSTER_ENTRIES; i++) {
+            int offset = cluster + i * ENTRY_BYTES;
+            long data = (long) LONGS.getOpaque(entries, offset + 8);
+            if (data != 0 && ((long) LONGS.getOpaque(entries, offset) ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores a search result for a position
+     *
+     * @param key the position's Zobrist key
+     * @param move the best move found (see {@link chess.Move}), or {@link chess.Move#NONE}
+     * @param score the score, which must fit in a short
+     * @param depth how many plies deep the position was searched
+     * @param bound EXACT, LOWER or UPPER
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int cluster = clusterOffset(key);
+        int age = generation & 0xFF;
+        int replace = cluster;
+        int replaceValue = Integer.MAX_VALUE;
+        for (int i = 0; i < CLUSTER_ENTRIES; i++) {
+            int offset = cluster + i * ENTRY_BYTES;
+            long data = (long) LONGS.getOpaque(entries, offset + 8);
+            if (data == 0 || ((long) LONGS.getOpaque(entries, offset) ^ data) == key) {
+                // Keep the old best move rather than forget it when this search didn't find one
+                if (move == 0 && data != 0) {
+                    move = move(data);
+                }
+                replace = offset;
+                break;
+            }
+            // Deep results are worth keeping, but only while they're from a recent search
+            int value = depth(data) - 8 * ((age - age(data)) & 0xFF);
+            if (value < replaceValue) {
+                replaceValue = value;
+                replace = offset;
+            }
+        }
+
+        long data = (move & 0xFFFFL)
+                | (score & 0xFFFFL) << 16
+                | (long) (depth & 0xFF) << 32
+                | (long) bound << 40
+                | (long) age << 48;
+        LONGS.setOpaque(entries, replace, key ^ data);
+        LONGS.setOpaque(entries, replace + 8, data);
+    }
+
+    /**
+     * Starts a new search, so that entries from earlier ones are replaced before this one's
+     */
+    public void newSearch() {
+        generation++;
+    }
+
+    /**
+     * Empties the table and its counters, e.g. before a new game
+     */
+    public void clear() {
+        for (int offset = 0; offset < entries.capacity(); offset += 8) {
+            LONGS.setOpaque(entries, offset, 0L);
+        }
+        probes.reset();
+        hits.reset();
+    }
+
+    /**
+     * @return the fraction of probes since the last clear that found their position
+     */
+    public double hitRate() {
+        long probed = probes.sum();
+        return probed == 0 ? 0 : hits.sum() / (double) probed;
+    }
+
+    /**
+     * @return the table's size in bytes
+     */
+    public int capacity() {
+        return entries.capacity();
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 40) & 0xFF;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> 48) & 0xFF;
+    }
+
+    private int clusterOffset(long key) {
+        // The low bits pick the cluster; mixing in the high bits keeps keys that differ only there apart
+        return (int) ((key ^ key >>> 32) & clusterMask) * CLUSTER_BYTES;
+    }
+}
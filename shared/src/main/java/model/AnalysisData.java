@@ -0,0 +1,21 @@
+package model;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * What the server's engine found for a position
+ *
+ * @param bestMove the move to play, or null if there are no legal moves
+ * @param score centipawns for the team to move
+ * @param mate True if the score is a forced mate for either team
+ * @param principalVariation the line the engine expects, starting with bestMove
+ * @param book True if bestMove came from the opening book, with no search behind the score
+ * @param queueMillis how long the request waited for a free analysis thread
+ * @param computeMillis how long the search itself ran
+ */
+public record AnalysisData(ChessMove bestMove, int score, boolean mate, int depth, long nodes,
+                           List<ChessMove> principalVariation, boolean book, long queueMillis,
+                           long computeMillis) {
+}
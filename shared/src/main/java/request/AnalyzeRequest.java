@@ -0,0 +1,10 @@
+package request;
+
+/**
+ * Asks the server to analyze either a stored game's current position or a FEN position
+ *
+ * @param gameID the game to analyze, or 0 to use fen instead
+ * @param fen the position to analyze when there's no gameID
+ * @param millis how long the search may run
+ */
+public record AnalyzeRequest(int gameID, String fen, long millis) {}
@@ -0,0 +1,49 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardTests {
+
+    @Test
+    @DisplayName("Off-Board Positions Are Rejected")
+    void offBoardPositions() {
+        var board = new ChessBoard();
+        board.resetBoard();
+        var before = new ChessBoard(board);
+        var queen = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
+
+        // (1,9) and (0,9) would otherwise fold onto a2 and a1
+        assertThrows(IndexOutOfBoundsException.class, () -> board.getPiece(new ChessPosition(1, 9)));
+        assertThrows(IndexOutOfBoundsException.class, () -> board.addPiece(new ChessPosition(0, 9), queen));
+        assertThrows(IndexOutOfBoundsException.class, () -> board.removePiece(new ChessPosition(9, 1)));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> board.isSquareAttacked(new ChessPosition(1, 0), ChessGame.TeamColor.BLACK));
+        assertEquals(before, board);
+    }
+
+    @Test
+    @DisplayName("JSON Keeps the Stored Grid Shape")
+    void jsonGridShape() {
+        var game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        // The shape games were stored in before the board was backed by masks
+        ChessPiece[][] grid = new ChessPiece[8][8];
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                grid[row - 1][col - 1] = game.getBoard().getPiece(new ChessPosition(row, col));
+            }
+        }
+        String stored = new Gson().toJson(Map.of("piecesOnBoard", grid));
+
+        assertEquals(stored, new Gson().toJson(game.getBoard()));
+        assertEquals(game.getBoard(), new Gson().fromJson(stored, ChessBoard.class));
+        var copy = new Gson().fromJson(new Gson().toJson(game), ChessGame.class);
+        assertEquals(game.getBoard(), copy.getBoard());
+        assertEquals(game.getBoard().getZobristKey(), copy.getBoard().getZobristKey());
+    }
+}
@@ -0,0 +1,76 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationTests {
+
+    @Test
+    @DisplayName("Starting Position Is Even")
+    void startingPosition() {
+        assertEquals(0, new ChessGame().getBoard().evaluate());
+        assertEquals(0, PieceSquareTables.evaluate(new ChessGame().getBoard()));
+    }
+
+    @Test
+    @DisplayName("Mirrored Positions Score Opposite")
+    void mirrored() {
+        var white = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1").getBoard();
+        var black = Fen.parse("r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1").getBoard();
+        assertEquals(white.evaluate(), -black.evaluate());
+        assertTrue(white.evaluate() != 0);
+    }
+
+    @Test
+    @DisplayName("Incremental Score Matches a Full Recount")
+    void incrementalMatchesFull() {
+        var game = Fen.parse("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        // Every castling, en passant, capture and promotion two plies deep, and back out again
+        checkTree(game, 3);
+        assertEquals(PieceSquareTables.evaluate(game.getBoard()), game.getBoard().evaluate());
+    }
+
+    private static void checkTree(ChessGame game, int depth) {
+        assertEquals(PieceSquareTables.evaluate(game.getBoard()), game.getBoard().evaluate(), Fen.toFen(game));
+        if (depth == 0) {
+            return;
+        }
+        var moves = new MoveList();
+        game.addLegalMoves(game.getTeamTurn(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            long undo = game.makeMove(moves.get(i));
+            checkTree(game, depth - 1);
+            game.unmakeMove(undo);
+        }
+    }
+
+    @Test
+    @DisplayName("Score Survives Copies, Gson and Board Edits")
+    void rebuilt() {
+        var board = Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1").getBoard();
+        int score = board.evaluate();
+        assertEquals(score, new ChessBoard(board).evaluate());
+        assertEquals(score, new Gson().fromJson(new Gson().toJson(board), ChessBoard.class).evaluate());
+
+        board.addPiece(new ChessPosition(1, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        assertTrue(board.evaluate() > score + 800);
+        board.removePiece(new ChessPosition(1, 1));
+        assertEquals(score, board.evaluate());
+    }
+
+    @Test
+    @DisplayName("Kings Move Up the Board in the Endgame")
+    void taper() {
+        // With every piece on, a king in the center is worse off than one at home; with none, it's better
+        int middlegameHome = Fen.parse(Fen.STARTING_POSITION).getBoard().evaluate();
+        int middlegameCenter = Fen.parse("rnbqkbnr/pppppppp/8/8/4K3/8/PPPPPPPP/RNBQ1BNR w - - 0 1")
+                .getBoard().evaluate();
+        assertTrue(middlegameCenter < middlegameHome);
+        int endgameHome = Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1").getBoard().evaluate();
+        int endgameCenter = Fen.parse("4k3/8/8/8/4K3/8/8/8 w - - 0 1").getBoard().evaluate();
+        assertTrue(endgameCenter > endgameHome);
+    }
+}
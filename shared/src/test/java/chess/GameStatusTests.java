@@ -0,0 +1,141 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameStatusTests {
+
+    @Test
+    @DisplayName("Fool's Mate Is Checkmate")
+    void foolsMate() throws InvalidMoveException {
+        var game = new ChessGame();
+        assertEquals(GameStatus.NORMAL, game.getStatus());
+        game.makeMove(new ChessMove(new ChessPosition(2, 6), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 7), new ChessPosition(4, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 4), new ChessPosition(4, 8), null));
+
+        var status = game.getStatus();
+        assertEquals(GameStatus.State.CHECKMATE, status.state());
+        assertEquals(ChessGame.TeamColor.WHITE, status.team());
+        assertTrue(status.isCheck());
+        assertTrue(status.isGameOver());
+    }
+
+    @Test
+    @DisplayName("Check and Stalemate")
+    void checkAndStalemate() {
+        var check = Fen.parse("4k3/8/8/8/8/8/8/4K2r w - - 0 1");
+        assertEquals(new GameStatus(GameStatus.State.CHECK, ChessGame.TeamColor.WHITE), check.getStatus());
+
+        var stalemate = Fen.parse("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1");
+        assertEquals(new GameStatus(GameStatus.State.STALEMATE, ChessGame.TeamColor.BLACK), stalemate.getStatus());
+    }
+
+    @Test
+    @DisplayName("Status Follows Board Changes and Gson")
+    void statusRecomputed() {
+        var game = Fen.parse("4k3/p7/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals(GameStatus.NORMAL, game.getStatus());
+
+        game.getBoard().addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.BLACK,
+                ChessPiece.PieceType.ROOK));
+        assertEquals(GameStatus.State.CHECK, game.getStatus().state());
+
+        var copy = new Gson().fromJson(new Gson().toJson(game), ChessGame.class);
+        assertEquals(game.getStatus(), copy.getStatus());
+    }
+
+    @Test
+    @DisplayName("Threefold Repetition Ends the Game")
+    void threefoldRepetition() throws InvalidMoveException {
+        var game = new ChessGame();
+        var gson = new Gson();
+        for (int i = 0; i < 2; i++) {
+            assertFalse(game.gameOver);
+            game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+            game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+            // The history has to survive the trip through the database
+            game = gson.fromJson(gson.toJson(game), ChessGame.class);
+            game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+        }
+        assertEquals(GameStatus.State.THREEFOLD_REPETITION, game.getStatus().state());
+        assertTrue(game.gameOver);
+    }
+
+    @Test
+    @DisplayName("Only Reversible Plies Are Stored")
+    void storedHistory() throws InvalidMoveException {
+        var game = new ChessGame();
+        var gson = new Gson();
+        knightsOutAndBack(game);
+        assertEquals(5, storedHistory(gson.toJson(game)));
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        assertEquals(1, storedHistory(gson.toJson(game)));
+    }
+
+    @Test
+    @DisplayName("A New Board Starts a New History")
+    void setBoardResetsHistory() throws InvalidMoveException {
+        var game = new ChessGame();
+        knightsOutAndBack(game);
+        var board = new ChessBoard();
+        board.resetBoard();
+        game.setBoard(board);
+        // The starting position would be on the board a third time if the old history counted
+        knightsOutAndBack(game);
+        assertFalse(game.gameOver);
+
+        game = Fen.parse("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        game.setBoard(Fen.parse("4k3/8/8/8/8/8/8/R3K3 w - - 0 1").getBoard());
+        assertEquals(0, game.getHalfmoveClock());
+        game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(2, 1), null));
+        assertFalse(game.gameOver);
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule")
+    void fiftyMoveRule() throws InvalidMoveException {
+        var game = Fen.parse("4k3/8/8/8/8/8/8/R3K3 w - - 99 80");
+        assertEquals(99, game.getHalfmoveClock());
+        game.makeMove(new ChessMove(new ChessPosition(1, 1), new ChessPosition(2, 1), null));
+        assertEquals(GameStatus.State.FIFTY_MOVE_RULE, game.getStatus().state());
+        assertTrue(game.gameOver);
+
+        // A pawn move starts the count again
+        game = Fen.parse("4k3/8/8/8/8/8/P7/4K3 w - - 99 80");
+        game.makeMove(new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 1), null));
+        assertEquals(0, game.getHalfmoveClock());
+        assertFalse(game.gameOver);
+    }
+
+    @Test
+    @DisplayName("Insufficient Material")
+    void insufficientMaterial() throws InvalidMoveException {
+        assertTrue(Fen.parse("4k3/8/8/8/8/8/8/4KN2 w - - 0 1").getBoard().hasInsufficientMaterial());
+        assertTrue(Fen.parse("2b1k3/8/8/8/8/8/8/4KB2 w - - 0 1").getBoard().hasInsufficientMaterial());
+        assertFalse(Fen.parse("1b2k3/8/8/8/8/8/8/4KB2 w - - 0 1").getBoard().hasInsufficientMaterial());
+        assertFalse(Fen.parse("4k3/8/8/8/8/8/8/3NKN2 w - - 0 1").getBoard().hasInsufficientMaterial());
+
+        var game = Fen.parse("4k3/8/8/8/8/8/4q3/4KN2 w - - 0 1");
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5), null));
+        assertEquals(GameStatus.State.INSUFFICIENT_MATERIAL, game.getStatus().state());
+        assertTrue(game.gameOver);
+    }
+
+    private static void knightsOutAndBack(ChessGame game) throws InvalidMoveException {
+        game.makeMove(new ChessMove(new ChessPosition(1, 7), new ChessPosition(3, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 7), new ChessPosition(6, 6), null));
+        game.makeMove(new ChessMove(new ChessPosition(3, 6), new ChessPosition(1, 7), null));
+        game.makeMove(new ChessMove(new ChessPosition(6, 6), new ChessPosition(8, 7), null));
+    }
+
+    private static int storedHistory(String json) {
+        return JsonParser.parseString(json).getAsJsonObject().getAsJsonArray("positionHistory").size();
+    }
+}
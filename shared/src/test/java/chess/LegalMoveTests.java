@@ -0,0 +1,110 @@
+package chess;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMoveTests {
+
+    @Test
+    @DisplayName("Legal Moves Match Valid Moves")
+    void legalMovesMatchValidMoves() {
+        var game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        for (var team : ChessGame.TeamColor.values()) {
+            var fromValidMoves = new ArrayList<ChessMove>();
+            for (int square = 0; square < 64; square++) {
+                var piece = game.getBoard().pieceAt(square);
+                if (piece != null && piece.getTeamColor() == team) {
+                    fromValidMoves.addAll(game.validMoves(Bitboards.position(square)));
+                }
+            }
+            var legalMoves = game.legalMoves(team);
+            assertEquals(new HashSet<>(fromValidMoves), new HashSet<>(legalMoves));
+            assertEquals(fromValidMoves.size(), legalMoves.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Pinned Piece Stays on Its Line")
+    void pinnedPiece() {
+        var game = Fen.parse("4k3/8/8/8/4r3/8/4R3/4K3 w - - 0 1");
+        var rookMoves = game.validMoves(new ChessPosition(2, 5));
+        assertEquals(2, rookMoves.size());
+        for (var move : rookMoves) {
+            assertEquals(5, move.getEndPosition().getColumn());
+        }
+    }
+
+    @Test
+    @DisplayName("Double Check Leaves Only King Moves")
+    void doubleCheck() {
+        var game = Fen.parse("4k3/8/8/8/1b6/8/3N4/r3K3 w - - 0 1");
+        for (var move : game.legalMoves(ChessGame.TeamColor.WHITE)) {
+            assertEquals(new ChessPosition(1, 5), move.getStartPosition());
+        }
+    }
+
+    @Test
+    @DisplayName("isLegal Agrees With Valid Moves")
+    void isLegalMatchesValidMoves() {
+        assertIsLegalMatchesValidMoves(
+                Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"));
+
+        // Taking en passant would empty the row between the rook and the king
+        var enPassant = new ChessMove(new ChessPosition(5, 4), new ChessPosition(6, 3), null);
+        var game = Fen.parse("8/8/8/K1pP3r/8/8/8/4k3 w - c6 0 1");
+        assertIsLegalMatchesValidMoves(game);
+        assertFalse(game.isLegal(enPassant));
+        game = Fen.parse("8/8/8/K1pP4/8/8/8/4k3 w - c6 0 1");
+        assertIsLegalMatchesValidMoves(game);
+        assertTrue(game.isLegal(enPassant));
+    }
+
+    private void assertIsLegalMatchesValidMoves(ChessGame game) {
+        for (int from = 0; from < 64; from++) {
+            var start = Bitboards.position(from);
+            var validMoves = game.validMoves(start);
+            if (validMoves == null) {
+                continue;
+            }
+            for (int to = 0; to < 64; to++) {
+                var end = Bitboards.position(to);
+                for (var promotion : new ChessPiece.PieceType[]{null, ChessPiece.PieceType.QUEEN,
+                        ChessPiece.PieceType.KING}) {
+                    var move = new ChessMove(start, end, promotion);
+                    assertEquals(validMoves.contains(move), game.isLegal(move), move.toString());
+                }
+            }
+        }
+        assertFalse(game.isLegal(new ChessMove(new ChessPosition(1, 5), new ChessPosition(0, 5), null)));
+    }
+
+    @Test
+    @DisplayName("Has Any Legal Move Finds Captures and Blocks")
+    void hasAnyLegalMove() {
+        // Back rank check that only a block answers
+        assertTrue(Fen.parse("6k1/8/8/8/8/3B4/6PP/r6K w - - 0 1").hasAnyLegalMove(ChessGame.TeamColor.WHITE));
+        // Check that only a capture answers, until the capturer is pinned
+        assertTrue(Fen.parse("6NK/6P1/7r/8/8/8/8/2k5 w - - 0 1").hasAnyLegalMove(ChessGame.TeamColor.WHITE));
+        assertFalse(Fen.parse("r5NK/6P1/7r/8/8/8/8/2k5 w - - 0 1").hasAnyLegalMove(ChessGame.TeamColor.WHITE));
+        // Knight check that only a pawn capture answers
+        assertTrue(Fen.parse("7k/8/8/8/8/1n6/PPN5/KR6 w - - 0 1").hasAnyLegalMove(ChessGame.TeamColor.WHITE));
+        // Stalemate
+        assertFalse(Fen.parse("k7/2Q5/1K6/8/8/8/8/8 b - - 0 1").hasAnyLegalMove(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Moves Starting Off the Board Are Illegal")
+    void offBoardStart() {
+        var game = new ChessGame();
+        // (1,9) would otherwise fold onto a2 and move its pawn
+        var move = new ChessMove(new ChessPosition(1, 9), new ChessPosition(3, 1), null);
+        assertFalse(game.isLegal(move));
+        assertThrows(InvalidMoveException.class, () -> game.makeMove(move));
+        assertEquals(new ChessGame().getBoard(), game.getBoard());
+    }
+}
@@ -0,0 +1,39 @@
+package chess;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveTests {
+
+    @Test
+    @DisplayName("Packed Moves Round Trip")
+    void roundTrip() {
+        var plain = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+        var promotion = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 2), ChessPiece.PieceType.KNIGHT);
+
+        assertEquals(plain, Move.toChessMove(Move.of(plain)));
+        assertEquals(promotion, Move.toChessMove(Move.of(promotion)));
+        assertEquals("e2e4", Move.toString(Move.of(plain)));
+        assertEquals("a7b8n", Move.toString(Move.of(promotion)));
+        assertNull(Move.promotion(Move.of(plain)));
+    }
+
+    @Test
+    @DisplayName("Move List Matches Piece Moves")
+    void moveListMatchesPieceMoves() {
+        var board = Fen.parse("r3k2r/1P6/8/8/3Q4/8/8/4K3 w - - 0 1").getBoard();
+        for (int square : new int[]{Bitboards.square(4, 4), Bitboards.square(7, 2), Bitboards.square(1, 5)}) {
+            var piece = board.pieceAt(square);
+            var list = new MoveList(2);
+            MoveGenerator.addPieceMoves(board, piece.getTeamColor(), piece.getPieceType(), square, list);
+
+            var expected = piece.pieceMoves(board, Bitboards.position(square));
+            assertEquals(new HashSet<>(expected), new HashSet<>(list.toChessMoves()));
+            assertEquals(expected.size(), list.size());
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package chess;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerftTests {
+
+    @Test
+    @DisplayName("Starting Position Node Counts")
+    void startingPosition() {
+        var game = new ChessGame();
+        assertEquals(20, Perft.perft(game, 1));
+        assertEquals(400, Perft.perft(game, 2));
+        assertEquals(8902, Perft.perft(game, 3));
+        assertEquals(197281, Perft.perft(game, 4));
+    }
+
+    @Test
+    @DisplayName("Castling, En Passant and Promotion Node Counts")
+    void specialMoves() {
+        // Reference counts published for these positions on the Chess Programming Wiki
+        assertEquals(97862, Perft.perft(
+                Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"), 3));
+        assertEquals(43238, Perft.perft(Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), 4));
+        assertEquals(9467, Perft.perft(
+                Fen.parse("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"), 3));
+        assertEquals(62379, Perft.perft(
+                Fen.parse("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"), 3));
+    }
+
+    @Test
+    @DisplayName("validMoves Gives the Reference Counts")
+    void validMovesCounts() {
+        assertEquals(8902, Perft.perftValidMoves(new ChessGame(), 3));
+        assertEquals(97862, Perft.perftValidMoves(
+                Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"), 3));
+        assertEquals(43238, Perft.perftValidMoves(Fen.parse("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"), 4));
+        assertEquals(9467, Perft.perftValidMoves(
+                Fen.parse("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"), 3));
+        assertEquals(62379, Perft.perftValidMoves(
+                Fen.parse("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"), 3));
+    }
+
+    @Test
+    @DisplayName("Perft Leaves the Game Unchanged")
+    void perftRestoresGame() {
+        var game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        var before = new ChessBoard(game.getBoard());
+        long key = game.positionKey();
+        Perft.perft(game, 3);
+        assertEquals(before, game.getBoard());
+        assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        assertEquals(key, game.positionKey());
+    }
+
+    @Test
+    @DisplayName("Divide Adds Up to Perft")
+    void divideMatchesPerft() {
+        var game = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R w - - 0 1");
+        long total = Perft.divide(game, 3).values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(Perft.perft(game, 3), total);
+        assertEquals(24, Perft.divide(game, 1).size());
+    }
+
+    @Test
+    @DisplayName("FEN Round Trip")
+    void fenRoundTrip() {
+        String fen = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 0 1";
+        assertEquals(fen, Fen.toFen(Fen.parse(fen)));
+        fen = "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w Kq f6 0 1";
+        assertEquals(fen, Fen.toFen(Fen.parse(fen)));
+        assertEquals(new ChessGame().getBoard(), Fen.parse(Fen.STARTING_POSITION).getBoard());
+    }
+}
@@ -0,0 +1,65 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionKeyTests {
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(position(from), position(to), null);
+    }
+
+    private static ChessPosition position(String square) {
+        return new ChessPosition(square.charAt(1) - '0', square.charAt(0) - 'a' + 1);
+    }
+
+    @Test
+    @DisplayName("Transpositions Share a Key")
+    void transpositionsMatch() throws InvalidMoveException {
+        var first = new ChessGame();
+        first.makeMove(move("g1", "f3"));
+        first.makeMove(move("g8", "f6"));
+        first.makeMove(move("b1", "c3"));
+
+        var second = new ChessGame();
+        second.makeMove(move("b1", "c3"));
+        second.makeMove(move("g8", "f6"));
+        second.makeMove(move("g1", "f3"));
+
+        assertEquals(first.positionKey(), second.positionKey());
+        assertEquals(first.getBoard().hashCode(), second.getBoard().hashCode());
+    }
+
+    @Test
+    @DisplayName("Side to Move Changes the Key")
+    void sideToMove() {
+        var game = new ChessGame();
+        long whiteToMove = game.positionKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        assertNotEquals(whiteToMove, game.positionKey());
+        assertEquals(whiteToMove, Fen.parse(Fen.STARTING_POSITION).positionKey());
+    }
+
+    @Test
+    @DisplayName("Make and Unmake Restore the Key")
+    void unmakeRestoresKey() {
+        var board = Fen.parse("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1").getBoard();
+        long before = board.getZobristKey();
+        int undo = board.makeMove(new ChessMove(position("b7"), position("b8"), ChessPiece.PieceType.QUEEN));
+        assertNotEquals(before, board.getZobristKey());
+        board.unmakeMove(undo);
+        assertEquals(before, board.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Key Survives Serialization")
+    void serializedKey() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(move("e2", "e4"));
+        var copy = new Gson().fromJson(new Gson().toJson(game), ChessGame.class);
+        assertEquals(game.positionKey(), copy.positionKey());
+    }
+}
@@ -0,0 +1,64 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.Fen;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchEvaluationTests {
+
+    // Not a multiple of any vector width, so the last boards take the scalar path
+    private static final int BOARDS = 203;
+
+    @Test
+    @DisplayName("Batch Scores Match the Board's Own")
+    void matchesEvaluation() {
+        ChessGame[] games = games();
+        BoardBatch batch = new BoardBatch(BOARDS);
+        for (ChessGame game : games) {
+            batch.add(game);
+        }
+        int[] scores = new int[BOARDS];
+        BatchEvaluation.evaluate(batch, scores);
+        int[] scalar = new int[BOARDS];
+        BatchEvaluation.evaluateScalar(batch, scalar, 0);
+
+        for (int i = 0; i < BOARDS; i++) {
+            assertEquals(Evaluation.evaluate(games[i]), scores[i], Fen.toFen(games[i]));
+            assertEquals(scores[i], scalar[i], Fen.toFen(games[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("Batches Fill and Clear")
+    void fillAndClear() {
+        BoardBatch batch = new BoardBatch(2);
+        ChessGame game = Fen.parse(Bench.POSITIONS[1]);
+        assertEquals(0, batch.add(game));
+        assertEquals(1, batch.add(new ChessGame()));
+        assertTrue(batch.isFull());
+        assertThrows(IllegalStateException.class, () -> batch.add(game));
+        assertEquals(game.getBoard().getPieces(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN),
+                batch.pieces(0, 11));
+
+        batch.clear();
+        assertEquals(0, batch.size());
+        assertEquals(0, batch.add(game));
+    }
+
+    private static ChessGame[] games() {
+        ChessGame[] games = BatchBench.randomGames(BOARDS, new Random(7));
+        // Promotions push the phase past its starting value
+        games[0] = Fen.parse("QQQQkQQQ/8/8/8/8/8/8/4K3 b - - 0 1");
+        games[1] = Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        for (int i = 0; i < Bench.POSITIONS.length; i++) {
+            games[2 + i] = Fen.parse(Bench.POSITIONS[i]);
+        }
+        return games;
+    }
+}
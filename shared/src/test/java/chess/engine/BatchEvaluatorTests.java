@@ -0,0 +1,97 @@
+package chess.engine;
+
+import chess.Fen;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchEvaluatorTests {
+
+    @Test
+    @DisplayName("Results Come Out in Input Order")
+    void inputOrder() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BatchEvaluator evaluator = new BatchEvaluator(pool, 3, 1);
+            // More positions than fit in the window, slow and fast ones mixed
+            List<String> fens = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                fens.add(Bench.POSITIONS[i % Bench.POSITIONS.length]);
+            }
+            List<BatchResult> results = new ArrayList<>();
+            evaluator.evaluate(fens.stream(), results::add);
+
+            assertEquals(fens.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+                BatchResult result = results.get(i);
+                assertEquals(i, result.index());
+                assertEquals(fens.get(i), result.fen());
+                assertTrue(result.ok());
+                // Every position starts from a cleared table, so repeats score the same
+                BatchResult first = results.get(i % Bench.POSITIONS.length);
+                assertEquals(first.score(), result.score());
+                assertEquals(first.bestMove(), result.bestMove());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Runs Score the Same Every Time")
+    void repeatable() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            BatchEvaluator evaluator = new BatchEvaluator(pool, 3, 1);
+            List<String> fens = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                fens.add(Bench.POSITIONS[(i * 7) % Bench.POSITIONS.length]);
+            }
+            List<BatchResult> first = new ArrayList<>();
+            evaluator.evaluate(fens.stream(), first::add);
+            List<BatchResult> second = new ArrayList<>();
+            evaluator.evaluate(fens.stream(), second::add);
+            assertEquals(first, second);
+            // A position scores the same wherever it comes in the batch
+            for (int i = 0; i < fens.size(); i++) {
+                BatchResult single = evaluator.evaluate(i, fens.get(i));
+                assertEquals(single, first.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Matches a Single Search")
+    void matchesSearch() {
+        String fen = Bench.POSITIONS[1];
+        BatchResult result = new BatchEvaluator(ForkJoinPool.commonPool(), 4, 1).evaluate(0, fen);
+        SearchResult search = new Search(Fen.parse(fen), new TranspositionTable(1)).search(SearchLimits.depth(4));
+        assertEquals(search.score(), result.score());
+        assertEquals(search.bestMove(), result.bestMove());
+        assertEquals(search.nodes(), result.nodes());
+    }
+
+    @Test
+    @DisplayName("Static Evaluation and Bad Positions")
+    void staticAndErrors() {
+        BatchEvaluator evaluator = new BatchEvaluator(ForkJoinPool.commonPool(), 0, 0);
+        List<BatchResult> results = new ArrayList<>();
+        evaluator.evaluate(Stream.of(Fen.STARTING_POSITION, "not a position", "4k3/8/8/8/8/8/8/3QK3 b - - 0 1"),
+                results::add);
+
+        assertEquals(3, results.size());
+        assertEquals(Evaluation.evaluate(Fen.parse(Fen.STARTING_POSITION)), results.get(0).score());
+        assertNull(results.get(0).bestMove());
+        assertFalse(results.get(1).ok());
+        assertEquals(2, results.get(2).index());
+        assertTrue(results.get(2).score() < -500);
+    }
+}
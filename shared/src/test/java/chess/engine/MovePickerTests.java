@@ -0,0 +1,79 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import chess.MoveList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovePickerTests {
+
+    // White can take the queen on d6 with the pawn or the rook, or the knight on b6 with the pawn
+    private static final String CAPTURES = "4k3/8/1n1q4/2P5/8/8/3R4/4K3 w - - 0 1";
+
+    @Test
+    @DisplayName("Hands Out Every Legal Move Once")
+    void everyMoveOnce() {
+        var game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        var legal = new MoveList();
+        game.addLegalMoves(game.getTeamTurn(), legal);
+
+        var picker = new MovePicker();
+        int hashMove = legal.get(legal.size() / 2);
+        picker.start(game, hashMove, legal.get(0), Move.of(0, 63), new int[64 * 64]);
+        var picked = new MoveList();
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            assertFalse(picked.contains(move), Move.toString(move));
+            picked.add(move);
+        }
+        assertEquals(legal.size(), picked.size());
+        assertEquals(hashMove, picked.get(0));
+    }
+
+    @Test
+    @DisplayName("Most Valuable Victim, Then Least Valuable Attacker")
+    void mvvLva() {
+        var picker = new MovePicker();
+        picker.startCaptures(Fen.parse(CAPTURES));
+        assertEquals(Move.of(34, 43), picker.next());
+        assertEquals(Move.of(11, 43), picker.next());
+        assertEquals(Move.of(34, 41), picker.next());
+        assertEquals(Move.NONE, picker.next());
+    }
+
+    @Test
+    @DisplayName("Killers Before Other Quiet Moves, Then History")
+    void killersAndHistory() {
+        var game = Fen.parse(CAPTURES);
+        int[] history = new int[64 * 64];
+        history[11 * 64 + 8] = 50;
+        int killer = Move.of(4, 3);
+        var picker = new MovePicker();
+        picker.start(game, Move.NONE, killer, Move.NONE, history);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(MovePicker.isTactical(game.getBoard(), picker.next()));
+        }
+        assertEquals(killer, picker.next());
+        assertEquals(Move.of(11, 8), picker.next());
+    }
+
+    @Test
+    @DisplayName("Skips a Hash Move That Isn't Legal Here")
+    void illegalHashMove() {
+        var game = new ChessGame();
+        var picker = new MovePicker();
+        // A black move, and a white move through its own pawn
+        for (int hashMove : new int[]{Move.of(52, 36), Move.of(3, 39)}) {
+            picker.start(game, hashMove, Move.NONE, Move.NONE, new int[64 * 64]);
+            int count = 0;
+            for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+                assertNotEquals(hashMove, move);
+                count++;
+            }
+            assertEquals(20, count);
+        }
+    }
+}
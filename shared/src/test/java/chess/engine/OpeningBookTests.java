@@ -0,0 +1,149 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpeningBookTests {
+
+    private static final String CASTLING = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Looks Up Weighted Moves")
+    void lookup() throws IOException {
+        PolyglotKeys keys = loadKeys();
+        OpeningBook book = writeBook(keys);
+        assertEquals(6, book.size());
+
+        List<BookMove> moves = book.moves(new ChessGame());
+        // The illegal e2e5 entry is dropped
+        assertEquals(List.of(new BookMove(move(2, 5, 4, 5), 10), new BookMove(move(2, 4, 4, 4), 5)), moves);
+        assertTrue(book.moves(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1")).isEmpty());
+        assertNull(book.pick(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1"), new SplittableRandom(1)));
+    }
+
+    @Test
+    @DisplayName("Castling Is Written as the King Taking Its Rook")
+    void castling() throws IOException {
+        PolyglotKeys keys = loadKeys();
+        OpeningBook book = writeBook(keys);
+        List<BookMove> moves = book.moves(Fen.parse(CASTLING));
+        assertEquals(List.of(new BookMove(move(1, 5, 1, 7), 1), new BookMove(move(1, 5, 1, 3), 1),
+                new BookMove(move(1, 1, 1, 2), 1)), moves);
+    }
+
+    @Test
+    @DisplayName("Picks in Proportion to Weight")
+    void pick() throws IOException {
+        OpeningBook book = writeBook(loadKeys());
+        var random = new SplittableRandom(7);
+        int e4 = 0;
+        for (int i = 0; i < 1500; i++) {
+            if (book.pick(new ChessGame(), random).equals(move(2, 5, 4, 5))) {
+                e4++;
+            }
+        }
+        assertTrue(e4 > 900 && e4 < 1100, "e2e4 picked " + e4 + " times");
+    }
+
+    @Test
+    @DisplayName("Keys Depend on Turn, Castling and En Passant")
+    void keys() throws IOException {
+        PolyglotKeys keys = loadKeys();
+        long start = keys.key(new ChessGame());
+        assertEquals(start, keys.key(Fen.parse(Fen.STARTING_POSITION)));
+        assertNotEquals(start, keys.key(Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1")));
+        assertNotEquals(start, keys.key(Fen.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w Kkq - 0 1")));
+        // The en passant file only counts when a pawn can take
+        assertEquals(keys.key(Fen.parse("rnbqkbnr/pppp1ppp/8/4p3/8/8/PPPPPPPP/RNBQKBNR w KQkq e6 0 1")),
+                keys.key(Fen.parse("rnbqkbnr/pppp1ppp/8/4p3/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1")));
+        assertNotEquals(keys.key(Fen.parse("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 1")),
+                keys.key(Fen.parse("rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq - 0 1")));
+    }
+
+    @Test
+    @DisplayName("Standard Keys Match Polyglot's")
+    void standardKeys() throws InvalidMoveException {
+        // Keys from the Polyglot book format specification
+        PolyglotKeys keys = PolyglotKeys.standard();
+        ChessGame game = new ChessGame();
+        assertEquals(0x463b96181691fc9cL, keys.key(game));
+        game.makeMove(move(2, 5, 4, 5));
+        assertEquals(0x823c9b50fd114196L, keys.key(game));
+        game.makeMove(move(7, 4, 5, 4));
+        assertEquals(0x0756b94461c50fb0L, keys.key(game));
+        game.makeMove(move(4, 5, 5, 5));
+        game.makeMove(move(7, 6, 5, 6));
+        assertEquals(0x22a48b5a8e47ff78L, keys.key(game));
+        game.makeMove(move(1, 5, 2, 5));
+        game.makeMove(move(8, 5, 7, 6));
+        assertEquals(0x00fdd303c946bdd9L, keys.key(game));
+    }
+
+    @Test
+    @DisplayName("Key Files Must Have 781 Numbers")
+    void keyFileLength() throws IOException {
+        Path file = Files.createTempFile("polyglot", ".txt");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, "U64(0x9D39247E33776D41), U64(0x2AF7398005AAA5C7)");
+        assertThrows(IOException.class, () -> PolyglotKeys.load(file));
+    }
+
+    // Random stand-ins for Polyglot's table, written the way the specification lists it
+    private static PolyglotKeys loadKeys() throws IOException {
+        var random = new SplittableRandom(42);
+        var text = new StringBuilder("const U64 Random64[781] = {\n");
+        for (int i = 0; i < PolyglotKeys.COUNT; i++) {
+            text.append(String.format("   U64(0x%016X),%n", random.nextLong()));
+        }
+        Path file = Files.createTempFile("polyglot", ".txt");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, text.append("};\n"));
+        return PolyglotKeys.load(file);
+    }
+
+    private static OpeningBook writeBook(PolyglotKeys keys) throws IOException {
+        long start = keys.key(new ChessGame());
+        long castling = keys.key(Fen.parse(CASTLING));
+        List<long[]> entries = new ArrayList<>();
+        // Polyglot moves: end file, end row, start file and start row in 3 bits each, from 0
+        entries.add(new long[]{start, bookMove(1, 4, 3, 4), 10});
+        entries.add(new long[]{start, bookMove(1, 3, 3, 3), 5});
+        entries.add(new long[]{start, bookMove(1, 4, 4, 4), 3});
+        entries.add(new long[]{castling, bookMove(0, 4, 0, 7), 1});
+        entries.add(new long[]{castling, bookMove(0, 4, 0, 0), 1});
+        entries.add(new long[]{castling, bookMove(0, 0, 0, 1), 1});
+        entries.sort((a, b) -> Long.compareUnsigned(a[0], b[0]));
+
+        ByteBuffer buffer = ByteBuffer.allocate(entries.size() * 16);
+        for (long[] entry : entries) {
+            buffer.putLong(entry[0]).putShort((short) entry[1]).putShort((short) entry[2]).putInt(0);
+        }
+        Path file = Files.createTempFile("book", ".bin");
+        file.toFile().deleteOnExit();
+        Files.write(file, buffer.array());
+        return new OpeningBook(file, keys);
+    }
+
+    private static long bookMove(int fromRow, int fromFile, int toRow, int toFile) {
+        return (fromRow << 9) | (fromFile << 6) | (toRow << 3) | toFile;
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new ChessMove(new ChessPosition(fromRow, fromCol), new ChessPosition(toRow, toCol), null);
+    }
+}
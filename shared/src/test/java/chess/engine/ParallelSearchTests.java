@@ -0,0 +1,53 @@
+package chess.engine;
+
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelSearchTests {
+
+    @Test
+    @DisplayName("Finds Mate in One on Several Threads")
+    void mateInOne() {
+        try (var search = new ParallelSearch(new TranspositionTable(1), 4)) {
+            var result = search.search(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits.depth(3));
+            assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+            assertEquals(Search.MATE - 1, result.score());
+        }
+    }
+
+    @Test
+    @DisplayName("Threads Agree With a Single Search")
+    void agreesWithSingleThread() {
+        var game = Fen.parse("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        var single = new Search(game).search(SearchLimits.depth(4));
+        try (var search = new ParallelSearch(new TranspositionTable(1), 3)) {
+            // Reusing the threads for a second search works the same as the first
+            for (int i = 0; i < 2; i++) {
+                var result = search.search(game, SearchLimits.depth(4));
+                assertEquals(single.bestMove(), result.bestMove());
+                assertTrue(result.depth() >= 4);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Helpers Stop With the Main Thread")
+    void stopsOnTime() {
+        try (var search = new ParallelSearch(new TranspositionTable(4), 4)) {
+            var result = search.search(Fen.parse(Fen.STARTING_POSITION), SearchLimits.millis(200));
+            assertNotNull(result.bestMove());
+            assertTrue(result.nanos() < 2_000_000_000L, "took " + result.nanos() + " ns");
+        }
+    }
+
+    @Test
+    @DisplayName("Needs a Thread")
+    void threadCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelSearch(new TranspositionTable(1), 0));
+    }
+}
@@ -0,0 +1,124 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchTests {
+
+    @Test
+    @DisplayName("Finds Mate in One")
+    void mateInOne() {
+        var result = new Search(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1")).search(SearchLimits.depth(3));
+        assertEquals(new ChessMove(new ChessPosition(1, 1), new ChessPosition(8, 1), null), result.bestMove());
+        assertTrue(result.isMate());
+        assertEquals(Search.MATE - 1, result.score());
+    }
+
+    @Test
+    @DisplayName("Takes a Hanging Queen")
+    void hangingQueen() {
+        var result = new Search(Fen.parse("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1")).search(SearchLimits.depth(2));
+        assertEquals(new ChessMove(new ChessPosition(2, 4), new ChessPosition(5, 4), null), result.bestMove());
+    }
+
+    @Test
+    @DisplayName("Stays Within the Node Budget")
+    void nodeBudget() {
+        var result = new Search(new ChessGame()).search(SearchLimits.nodes(20_000));
+        assertNotNull(result.bestMove());
+        assertTrue(result.depth() >= 1);
+        // The budget is only checked every 1024 nodes
+        assertTrue(result.nodes() <= 20_000 + 1024, "searched " + result.nodes() + " nodes");
+    }
+
+    @Test
+    @DisplayName("Stopping Straight Away Isn't a Mate")
+    void stoppedAtOnce() {
+        var game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        // Already set, so the search stops at its first check, inside the first root move
+        var result = new Search(game, null, new AtomicBoolean(true), 1).search(SearchLimits.depth(5));
+        assertNotNull(result.bestMove());
+        assertFalse(result.isMate());
+        assertEquals(Evaluation.evaluate(game), result.score());
+    }
+
+    @Test
+    @DisplayName("Search Leaves the Game Unchanged")
+    void gameUnchanged() {
+        var game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        String before = Fen.toFen(game);
+        new Search(game).search(SearchLimits.depth(3));
+        assertEquals(before, Fen.toFen(game));
+    }
+
+    @Test
+    @DisplayName("No Move When Checkmated")
+    void checkmated() {
+        var result = new Search(Fen.parse("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1")).search(SearchLimits.depth(3));
+        assertNull(result.bestMove());
+        assertEquals(-Search.MATE, result.score());
+    }
+
+    @Test
+    @DisplayName("Principal Variation Follows the Table")
+    void principalVariation() throws InvalidMoveException {
+        var game = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        var search = new Search(game, new TranspositionTable(1));
+        var result = search.search(SearchLimits.depth(5));
+        List<ChessMove> line = search.principalVariation(10);
+        assertTrue(line.size() > 1, "line " + line);
+        assertEquals(result.bestMove(), line.get(0));
+        for (ChessMove move : line) {
+            game.makeMove(move);
+        }
+
+        var withoutTable = new Search(new ChessGame());
+        withoutTable.search(SearchLimits.depth(3));
+        assertEquals(1, withoutTable.principalVariation(10).size());
+    }
+
+    @Test
+    @DisplayName("Repetitions Count From the Game's History")
+    void repetitionFromHistory() throws InvalidMoveException {
+        // Black is a queen down, and Kb8 goes back to a position the game has already had
+        var game = Fen.parse("k7/8/8/8/8/8/8/3QK3 w - - 0 1");
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 1), new ChessPosition(8, 2), null));
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(1, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(8, 2), new ChessPosition(8, 1), null));
+        game.makeMove(new ChessMove(new ChessPosition(1, 5), new ChessPosition(2, 5), null));
+
+        var result = new Search(game).search(SearchLimits.depth(2));
+        assertEquals(new ChessMove(new ChessPosition(8, 1), new ChessPosition(8, 2), null), result.bestMove());
+        assertEquals(0, result.score());
+
+        // The same position with no history behind it has no draw to take
+        var fresh = new Search(Fen.parse(Fen.toFen(game))).search(SearchLimits.depth(2));
+        assertTrue(fresh.score() < -500, "score " + fresh.score());
+    }
+
+    @Test
+    @DisplayName("A Reused Search Matches a New One")
+    void setPosition() {
+        var search = new Search(new ChessGame());
+        search.search(SearchLimits.depth(3));
+        for (String fen : Bench.POSITIONS) {
+            search.setPosition(Fen.parse(fen));
+            var reused = search.search(SearchLimits.depth(3));
+            var fresh = new Search(Fen.parse(fen)).search(SearchLimits.depth(3));
+            assertEquals(fresh.score(), reused.score());
+            assertEquals(fresh.bestMove(), reused.bestMove());
+            assertEquals(fresh.nodes(), reused.nodes());
+        }
+    }
+}
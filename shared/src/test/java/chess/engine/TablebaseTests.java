@@ -0,0 +1,122 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.MoveList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablebaseTests {
+
+    private static TablebaseGenerator generator;
+    private static Tablebase tablebase;
+
+    // KBNK takes a few seconds to build, the three-piece endings are enough to test with
+    private static synchronized Tablebase tablebase() throws IOException {
+        if (tablebase == null) {
+            generator = new TablebaseGenerator();
+            generator.generate(Endgame.KPK);
+            Path file = Files.createTempFile("tablebase", ".bin");
+            file.toFile().deleteOnExit();
+            generator.write(file);
+            tablebase = Tablebase.open(file);
+        }
+        return tablebase;
+    }
+
+    @Test
+    @DisplayName("Longest Mates Match the Known Ones")
+    void longestMates() throws IOException {
+        tablebase();
+        // Mate in 10 moves for KQK and 16 for KRK, with the winning side to move
+        assertEquals(19, longest(generator.generate(Endgame.KQK)));
+        assertEquals(31, longest(generator.generate(Endgame.KRK)));
+    }
+
+    @Test
+    @DisplayName("Known Positions")
+    void knownPositions() throws IOException {
+        Tablebase tablebase = tablebase();
+        assertEquals(-1, tablebase.probe(Fen.parse("R5k1/8/6K1/8/8/8/8/8 b - - 0 1")));
+        assertEquals(1, tablebase.probe(Fen.parse("6k1/8/6K1/8/8/8/8/R7 w - - 0 1")));
+        // The rook pawn can't drive the king out of its corner
+        assertEquals(0, tablebase.probe(Fen.parse("k7/8/8/8/8/8/P7/K7 w - - 0 1")));
+        // Stalemate
+        assertEquals(0, tablebase.probe(Fen.parse("k7/P7/1K6/8/8/8/8/8 b - - 0 1")));
+        assertTrue(tablebase.probe(Fen.parse("7k/3KP3/8/8/8/8/8/8 w - - 0 1")) > 0);
+        // The same positions with colors swapped
+        assertEquals(-1, tablebase.probe(Fen.parse("8/8/8/8/8/6k1/8/r5K1 w - - 0 1")));
+        assertTrue(tablebase.probe(Fen.parse("8/8/8/8/8/8/3kp3/7K b - - 0 1")) > 0);
+    }
+
+    @Test
+    @DisplayName("Only Covered Endings Are Found")
+    void notFound() throws IOException {
+        Tablebase tablebase = tablebase();
+        assertEquals(Tablebase.NOT_FOUND, tablebase.probe(new ChessGame()));
+        assertEquals(Tablebase.NOT_FOUND, tablebase.probe(Fen.parse("4k3/8/8/8/8/8/8/4K2R w K - 0 1")));
+        assertEquals(Tablebase.NOT_FOUND, tablebase.probe(Fen.parse("4k3/8/8/8/8/8/8/2B1K1N1 w - - 0 1")));
+        assertEquals(Tablebase.NOT_FOUND, tablebase.probe(Fen.parse("4k2r/8/8/8/8/8/8/4K2R w - - 0 1")));
+        assertFalse(tablebase.covers(Endgame.KBNK));
+    }
+
+    @Test
+    @DisplayName("Every Result Follows From the Moves")
+    void consistentWithMoves() throws IOException {
+        Tablebase tablebase = tablebase();
+        String[] positions = {
+                "8/8/3k4/8/8/2K5/8/6R1 w - - 0 1", "8/8/3k4/8/8/2K5/8/6R1 b - - 0 1",
+                "8/5k2/8/8/2Q5/8/8/K7 b - - 0 1", "8/8/8/4k3/8/8/4P3/4K3 w - - 0 1",
+                "8/8/8/4k3/8/8/4P3/4K3 b - - 0 1", "8/8/8/8/1k6/8/1P6/1K6 w - - 0 1",
+        };
+        for (String fen : positions) {
+            ChessGame game = Fen.parse(fen);
+            int result = tablebase.probe(game);
+            MoveList moves = new MoveList();
+            game.addLegalMoves(game.getTeamTurn(), moves);
+            int best = Integer.MIN_VALUE;
+            for (int i = 0; i < moves.size(); i++) {
+                long undo = game.makeMove(moves.get(i));
+                int child = tablebase.probe(game);
+                game.unmakeMove(undo);
+                // Taking the last piece is a draw; a won child is a loss from here and vice versa
+                int score = child == Tablebase.NOT_FOUND || child == 0 ? 0
+                        : child < 0 ? 1000 - Tablebase.plies(child) : -1000 + Tablebase.plies(child);
+                best = Math.max(best, score);
+            }
+            int expected = best == 0 ? 0 : best > 0 ? 1001 - best : -1001 - best - 1;
+            assertEquals(expected, result, fen);
+        }
+    }
+
+    @Test
+    @DisplayName("Search Plays the Tablebase's Mates")
+    void search() throws IOException, InvalidMoveException {
+        Tablebase tablebase = tablebase();
+        ChessGame game = Fen.parse("8/8/3k4/8/8/2K5/8/6R1 w - - 0 1");
+        int result = tablebase.probe(game);
+        assertTrue(result > 0);
+
+        Search search = new Search(game);
+        search.setTablebase(tablebase);
+        SearchResult found = search.search(SearchLimits.depth(2));
+        assertEquals(Search.MATE - result, found.score());
+        game.makeMove(found.bestMove());
+        assertEquals(Tablebase.loss(result - 1), tablebase.probe(game));
+    }
+
+    private static int longest(byte[] table) {
+        int longest = 0;
+        for (byte value : table) {
+            longest = Math.max(longest, value);
+        }
+        return longest;
+    }
+}
@@ -0,0 +1,96 @@
+package chess.engine;
+
+import chess.ChessGame;
+import chess.Fen;
+import chess.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TranspositionTableTests {
+
+    @Test
+    @DisplayName("Stored Entries Read Back")
+    void storeAndProbe() {
+        var table = new TranspositionTable(1);
+        long key = new ChessGame().positionKey();
+        int move = Move.of(12, 28);
+        table.store(key, move, -1234, 7, TranspositionTable.LOWER);
+
+        long entry = table.probe(key);
+        assertNotEquals(0, entry);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-1234, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(0, table.probe(key + 1));
+    }
+
+    @Test
+    @DisplayName("Keeps the Old Move When a Result Has None")
+    void keepsMove() {
+        var table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        table.store(key, Move.of(1, 18), 50, 3, TranspositionTable.EXACT);
+        table.store(key, Move.NONE, -20, 4, TranspositionTable.UPPER);
+
+        long entry = table.probe(key);
+        assertEquals(Move.of(1, 18), TranspositionTable.move(entry));
+        assertEquals(-20, TranspositionTable.score(entry));
+        assertEquals(4, TranspositionTable.depth(entry));
+    }
+
+    @Test
+    @DisplayName("Replaces the Shallowest Entry in a Full Cluster")
+    void replacement() {
+        var table = new TranspositionTable(1);
+        // Keys with the same low bits and no high bits share a cluster
+        long stride = table.capacity() / 64;
+        for (int i = 1; i <= 4; i++) {
+            table.store(i * stride, Move.NONE, i, 10 - i, TranspositionTable.EXACT);
+        }
+        table.store(5 * stride, Move.NONE, 5, 10, TranspositionTable.EXACT);
+
+        assertEquals(0, table.probe(4 * stride));
+        for (int i : new int[]{1, 2, 3, 5}) {
+            assertEquals(i, TranspositionTable.score(table.probe(i * stride)));
+        }
+    }
+
+    @Test
+    @DisplayName("Hit Rate and Clear")
+    void hitRateAndClear() {
+        var table = new TranspositionTable(1);
+        table.store(42, Move.NONE, 0, 1, TranspositionTable.EXACT);
+        table.probe(42);
+        table.probe(43);
+        assertEquals(0.5, table.hitRate());
+
+        table.clear();
+        assertEquals(0.0, table.hitRate());
+        assertEquals(0, table.probe(42));
+    }
+
+    @Test
+    @DisplayName("Size Is Validated")
+    void size() {
+        assertEquals(1024 * 1024, new TranspositionTable(1).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(TranspositionTable.MAX_MEGABYTES + 1));
+    }
+
+    @Test
+    @DisplayName("Search With a Table Agrees and Searches Less")
+    void searchWithTable() {
+        var game = Fen.parse("r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R1BQ1RK1 w - - 0 8");
+        var without = new Search(game).search(SearchLimits.depth(4));
+        var table = new TranspositionTable(4);
+        var with = new Search(game, table).search(SearchLimits.depth(4));
+        assertTrue(with.nodes() < without.nodes(), with.nodes() + " vs " + without.nodes());
+        assertTrue(table.hitRate() > 0);
+
+        var mate = new Search(Fen.parse("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), table).search(SearchLimits.depth(4));
+        assertEquals(Search.MATE - 1, mate.score());
+    }
+}
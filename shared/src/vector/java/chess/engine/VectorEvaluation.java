@@ -0,0 +1,117 @@
+package chess.engine;
+
+import chess.PieceSquareTables;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link BatchEvaluation} with the incubating Vector API: each lane of a vector holds one
+ * board, so a vector's width of boards is scored by the same instructions.
+ * <p>
+ * A board's pieces can't be walked one by one across lanes, so the piece-square sums are
+ * looked up a few squares at a time instead. Each half mask is cut into groups of as many
+ * bits as it takes to number a vector's lanes, 4 with 16 lanes, so the table of summed
+ * values for every way a group can be occupied is exactly one vector wide. A lane shuffle
+ * then looks up every lane's entry at once, with no gather and no index array. Entries hold
+ * the middlegame sum in the low 16 bits and the endgame sum above it, so both add up in one
+ * int; the phase is a popcount of each mask.
+ * <p>
+ * Only built with the {@code vector} Maven profile, and only loaded, by name, when
+ * {@code jdk.incubator.vector} is present.
+ */
+final class VectorEvaluation implements BatchEvaluation.Kernel {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    // Bits per group, and groups per 32-bit half mask; the last group may be short
+    private static final int BITS = Integer.numberOfTrailingZeros(INTS.length());
+    private static final int GROUPS = (32 + BITS - 1) / BITS;
+    // Packed sums for [((pieceIndex * 2 + half) * GROUPS + group) * lanes + occupancy of the group]
+    private static final int[] GROUP_SUMS = new int[12 * 2 * GROUPS * INTS.length()];
+
+    static {
+        int lanes = INTS.length();
+        for (int index = 0; index < 12; index++) {
+            for (int half = 0; half < 2; half++) {
+                for (int group = 0; group < GROUPS; group++) {
+                    for (int occupancy = 0; occupancy < lanes; occupancy++) {
+                        int middlegame = 0;
+                        int endgame = 0;
+                        for (int bit = 0; bit < BITS && group * BITS + bit < 32; bit++) {
+                            if ((occupancy & 1 << bit) != 0) {
+                                int square = half * 32 + group * BITS + bit;
+                                middlegame += PieceSquareTables.middlegame(index, square);
+                                endgame += PieceSquareTables.endgame(index, square);
+                            }
+                        }
+                        GROUP_SUMS[((index * 2 + half) * GROUPS + group) * lanes + occupancy] =
+                                pack(middlegame, endgame);
+                    }
+                }
+            }
+        }
+    }
+
+    VectorEvaluation() {
+    }
+
+    /**
+     * @return True if vectors are wide enough to beat scoring boards one at a time; narrower
+     * ones may not be backed by the CPU at all
+     */
+    @Override
+    public boolean isWorthwhile() {
+        return INTS.length() >= 8 && FLOATS.length() == INTS.length();
+    }
+
+    @Override
+    public void evaluate(BoardBatch batch, int[] scores) {
+        int lanes = INTS.length();
+        int bound = INTS.loopBound(batch.size());
+        for (int board = 0; board < bound; board += lanes) {
+            IntVector sums = IntVector.zero(INTS);
+            IntVector phase = IntVector.zero(INTS);
+            for (int index = 0; index < 12; index++) {
+                IntVector low = IntVector.fromArray(INTS, batch.low[index], board);
+                IntVector high = IntVector.fromArray(INTS, batch.high[index], board);
+                int weight = PieceSquareTables.phase(index);
+                if (weight != 0) {
+                    phase = phase.add(low.lanewise(VectorOperators.BIT_COUNT)
+                            .add(high.lanewise(VectorOperators.BIT_COUNT)).mul(weight));
+                }
+                int table = index * 2 * GROUPS * lanes;
+                for (int group = 0; group < GROUPS; group++) {
+                    sums = sums.add(groupSums(low, group, table + group * lanes));
+                    sums = sums.add(groupSums(high, group, table + (GROUPS + group) * lanes));
+                }
+            }
+            // Undo the packing: the low half is signed, and the high half is what's left
+            IntVector middlegame = sums.lanewise(VectorOperators.LSHL, 16).lanewise(VectorOperators.ASHR, 16);
+            IntVector endgame = sums.sub(middlegame).lanewise(VectorOperators.ASHR, 16);
+            phase = phase.min(PieceSquareTables.MAX_PHASE);
+            IntVector blended = middlegame.mul(phase)
+                    .add(endgame.mul(phase.neg().add(PieceSquareTables.MAX_PHASE)));
+            // There's no integer division across lanes. Blended scores are well within a float's
+            // 24 bits, so dividing as floats and truncating gives exactly the int quotient
+            IntVector tapered = (IntVector) ((FloatVector) blended.convert(VectorOperators.I2F, 0))
+                    .div(PieceSquareTables.MAX_PHASE)
+                    .convert(VectorOperators.F2I, 0);
+            tapered.mul(IntVector.fromArray(INTS, batch.sign, board)).intoArray(scores, board);
+        }
+        BatchEvaluation.evaluateScalar(batch, scores, bound);
+    }
+
+    // Looks up the sums for one group of a half mask in every lane
+    private static IntVector groupSums(IntVector half, int group, int table) {
+        IntVector occupancy = half.lanewise(VectorOperators.LSHR, group * BITS).and(INTS.length() - 1);
+        return occupancy.selectFrom(IntVector.fromArray(INTS, GROUP_SUMS, table));
+    }
+
+    // Middlegame and endgame sums stay under 2^15 in size, so they share an int
+    private static int pack(int middlegame, int endgame) {
+        return (endgame << 16) + middlegame;
+    }
+}